@@ -0,0 +1,34 @@
+package com.universidad.auditorio.config;
+
+/**
+ * Comparación de ETags para las cabeceras condicionales (If-None-Match, If-Range)
+ * según RFC 9110: la cabecera es una lista separada por comas, puede ser "*" y
+ * los valores pueden venir con el prefijo débil W/.
+ */
+public final class CabecerasCondicionales {
+
+    private CabecerasCondicionales() {
+    }
+
+    /**
+     * Indica si If-None-Match coincide con el ETag (comparación débil, como pide la RFC
+     * para esta cabecera). Un valor que solo contiene al ETag como subcadena no coincide.
+     */
+    public static boolean coincideIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String propio = sinPrefijoDebil(etag.trim());
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || sinPrefijoDebil(valor).equals(propio)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sinPrefijoDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
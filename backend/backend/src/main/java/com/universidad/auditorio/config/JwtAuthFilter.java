@@ -0,0 +1,48 @@
+package com.universidad.auditorio.config;
+
+import com.universidad.auditorio.service.JwtService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Autentica el request con el access token de la cabecera Authorization ("Bearer ...").
+ * El principal es el id del usuario y la autoridad ROLE_{rol}, tomados del token.
+ * Un token ausente o inválido deja el request sin autenticar: las rutas públicas
+ * siguen funcionando y las protegidas responden 401.
+ */
+public class JwtAuthFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final JwtService jwtService;
+
+    public JwtAuthFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(PREFIJO)) {
+            jwtService.verificar(header.substring(PREFIJO.length()).trim(), JwtService.TIPO_ACCESS)
+                    .ifPresent(token -> {
+                        UsernamePasswordAuthenticationToken autenticacion = new UsernamePasswordAuthenticationToken(
+                                token.usuarioId(), null,
+                                List.of(new SimpleGrantedAuthority("ROLE_" + token.rol().name())));
+                        SecurityContextHolder.getContext().setAuthentication(autenticacion);
+                    });
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,253 @@
+package com.universidad.auditorio.config;
+
+import com.universidad.auditorio.dto.ObjetoAlmacenadoDTO;
+import com.universidad.auditorio.service.LocalStorageService;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sirve los archivos del almacenamiento local (/auditorios/**, /usuarios/**, /media/**).
+ * Soporta Range (206) para poder adelantar videos y marca las respuestas como
+ * inmutables: las llaves llevan UUID y nunca se reescriben, así que el navegador
+ * puede cachearlas sin volver a preguntar. Si el conector de Tomcat soporta
+ * sendfile, el envío se delega a él (el archivo va del disco al socket sin pasar
+ * por el hilo del request); si no, se copia por el OutputStream del response y
+ * las transferencias grandes se limitan en concurrencia.
+ */
+@Component
+@RequiredArgsConstructor
+public class MediaRequestHandler implements HttpRequestHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaRequestHandler.class);
+
+    private static final Pattern RANGO = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+
+    /** Desde este tamaño la transferencia cuenta para el límite de concurrencia */
+    private static final long UMBRAL_GRANDE = 1024 * 1024;
+    private static final int MAX_TRANSFERENCIAS_GRANDES = 16;
+    private static final long ESPERA_CUPO_MS = 2000;
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    /** Atributos del request con los que Tomcat anuncia y recibe un envío por sendfile */
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private final LocalStorageService localStorageService;
+
+    private final Semaphore transferenciasGrandes = new Semaphore(MAX_TRANSFERENCIAS_GRANDES);
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        boolean head = "HEAD".equals(request.getMethod());
+        if (!head && !"GET".equals(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        // Ruta decodificada (las llaves incluyen el nombre original del archivo, con espacios, tildes, etc.)
+        String key = URL_PATH_HELPER.getPathWithinApplication(request);
+        key = key.startsWith("/") ? key.substring(1) : key;
+        // Los .meta son metadatos internos del object store, nunca se sirven
+        Path path = key.endsWith(LocalStorageService.EXTENSION_META) ? null : localStorageService.resolver(key);
+        if (path == null || !Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes atributos = Files.readAttributes(path, BasicFileAttributes.class);
+        long tamano = atributos.size();
+        long modificado = atributos.lastModifiedTime().toMillis() / 1000 * 1000;
+        // Con metadatos el ETag es el SHA-256 del contenido (estable aunque el archivo se reescriba)
+        ObjetoAlmacenadoDTO meta = localStorageService.getMetadatos(key).orElse(null);
+        String etag = meta != null && meta.getSha256() != null
+                ? "\"" + meta.getSha256() + "\""
+                : "\"" + Long.toHexString(tamano) + "-" + Long.toHexString(modificado) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, modificado);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_INMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (noModificado(request, etag, modificado)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = meta != null ? meta.getContentType()
+                : request.getServletContext().getMimeType(path.getFileName().toString());
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+
+        long inicio = 0;
+        long fin = tamano - 1;
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        if (rango != null && aplicaRango(request, etag, modificado)) {
+            long[] limites = parsearRango(rango, tamano);
+            if (limites == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (limites.length == 2) {
+                inicio = limites[0];
+                fin = limites[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+            }
+        }
+
+        long longitud = fin - inicio + 1;
+        response.setContentLengthLong(longitud);
+        if (head || longitud <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat envía el archivo después de que el handler retorna (fin exclusivo)
+            request.setAttribute(SENDFILE_ARCHIVO, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+            return;
+        }
+
+        boolean grande = longitud >= UMBRAL_GRANDE;
+        if (grande && !adquirirCupo()) {
+            response.reset();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try {
+            transferir(path, inicio, longitud, response);
+        } finally {
+            if (grande) {
+                transferenciasGrandes.release();
+            }
+        }
+    }
+
+    /**
+     * Copia el tramo pedido al OutputStream del response (sin sendfile los bytes
+     * pasan por el buffer del contenedor).
+     */
+    private void transferir(Path path, long inicio, long longitud, HttpServletResponse response) throws IOException {
+        try (InputStream archivo = Files.newInputStream(path)) {
+            archivo.skipNBytes(inicio);
+            OutputStream salida = response.getOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            long restante = longitud;
+            while (restante > 0) {
+                int leidos = archivo.read(buffer, 0, (int) Math.min(buffer.length, restante));
+                if (leidos < 0) {
+                    break;
+                }
+                salida.write(buffer, 0, leidos);
+                restante -= leidos;
+            }
+        } catch (IOException e) {
+            // Lo habitual es que el navegador cortó la conexión (ej: al adelantar el video)
+            logger.debug("Transferencia de {} interrumpida: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private boolean adquirirCupo() {
+        try {
+            return transferenciasGrandes.tryAcquire(ESPERA_CUPO_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean noModificado(HttpServletRequest request, String etag, long modificado) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return CabecerasCondicionales.coincideIfNoneMatch(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = fecha(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && modificado <= ifModifiedSince;
+    }
+
+    /**
+     * Con If-Range solo se respeta el Range si el archivo sigue siendo el mismo:
+     * un ETag debe coincidir en forma fuerte (un W/ nunca coincide) y una fecha
+     * debe ser exactamente la última modificación.
+     */
+    static boolean aplicaRango(HttpServletRequest request, String etag, long modificado) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long fecha = fecha(request, HttpHeaders.IF_RANGE);
+        return fecha >= 0 && modificado == fecha;
+    }
+
+    /**
+     * Interpreta un único rango "bytes=a-b", "bytes=a-" o "bytes=-n".
+     * Devuelve {inicio, fin}, un arreglo vacío si el rango se ignora (varios rangos,
+     * formato desconocido) o null si no es satisfacible.
+     */
+    static long[] parsearRango(String rango, long tamano) {
+        Matcher m = RANGO.matcher(rango.trim());
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) {
+            return new long[0];
+        }
+        try {
+            long inicio;
+            long fin;
+            if (m.group(1).isEmpty()) {
+                long sufijo = Long.parseLong(m.group(2));
+                if (sufijo == 0) {
+                    return null;
+                }
+                inicio = Math.max(0, tamano - sufijo);
+                fin = tamano - 1;
+            } else {
+                inicio = Long.parseLong(m.group(1));
+                fin = m.group(2).isEmpty() ? tamano - 1 : Math.min(Long.parseLong(m.group(2)), tamano - 1);
+            }
+            if (inicio >= tamano || fin < inicio) {
+                return null;
+            }
+            return new long[]{inicio, fin};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static long fecha(HttpServletRequest request, String header) {
+        try {
+            return request.getDateHeader(header);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.universidad.auditorio.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt en un pool propio y acotado, fuera de los hilos de Tomcat: una avalancha de
+ * logins ocupa como máximo esos hilos y no deja sin CPU a las reservas. Con la cola
+ * llena se lanza RejectedExecutionException, que se responde como 503.
+ * El costo se calibra al arrancar: el mayor (entre el mínimo y el máximo configurados)
+ * cuyo hash tarda a lo sumo el objetivo en esta máquina. Los hashes con costo menor
+ * se detectan con upgradeEncoding y se rehacen en el siguiente login.
+ * Métricas: seguridad.password.hash (duración por operación), seguridad.password.cola,
+ * seguridad.password.activos, seguridad.password.rechazados y seguridad.password.costo.
+ */
+public class PasswordHashingEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingEncoder.class);
+
+    private final BCryptPasswordEncoder delegado;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rechazados;
+    private final int costo;
+
+    public PasswordHashingEncoder(MeterRegistry meterRegistry, int hilos, int cola,
+                                  long objetivoMs, int costoMinimo, int costoMaximo) {
+        this.meterRegistry = meterRegistry;
+        this.costo = calibrar(objetivoMs, costoMinimo, costoMaximo);
+        this.delegado = new BCryptPasswordEncoder(costo);
+
+        int tamano = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(tamano, tamano, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), r -> {
+                    Thread t = new Thread(r, "password-hash");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.rechazados = Counter.builder("seguridad.password.rechazados")
+                .description("Operaciones de contraseña rechazadas por cola llena (503)")
+                .register(meterRegistry);
+        Gauge.builder("seguridad.password.cola", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("seguridad.password.activos", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("seguridad.password.costo", () -> costo).register(meterRegistry);
+        logger.info("BCrypt con costo {} ({} hilos, cola de {})", costo, tamano, cola);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar("encode", () -> delegado.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar("matches", () -> delegado.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegado.upgradeEncoding(encodedPassword);
+    }
+
+    public int getCosto() {
+        return costo;
+    }
+
+    private <T> T ejecutar(String operacion, Callable<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    return tarea.call();
+                } finally {
+                    Timer.builder("seguridad.password.hash")
+                            .tag("operacion", operacion)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new RejectedExecutionException("Demasiadas solicitudes de autenticación, intente en unos segundos");
+        }
+
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Operación de contraseña interrumpida", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Sube el costo mientras un hash siga tardando a lo sumo objetivoMs (cada punto lo duplica).
+     */
+    private static int calibrar(long objetivoMs, int costoMinimo, int costoMaximo) {
+        // Calentamiento: la primera ejecución incluye carga de clases y JIT
+        new BCryptPasswordEncoder(costoMinimo).encode("calibracion");
+        int elegido = costoMinimo;
+        while (elegido < costoMaximo && medirMs(elegido + 1) <= objetivoMs) {
+            elegido++;
+        }
+        return elegido;
+    }
+
+    private static long medirMs(int costo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(costo);
+        long inicio = System.nanoTime();
+        encoder.encode("calibracion");
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,5 +1,6 @@
 package com.universidad.auditorio.config;
 
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +13,10 @@ public class S3Config {
     @Value("${aws.s3.region:us-east-1}")
     private String region;
 
+    // Endpoint alternativo compatible con S3 (ej: MinIO local para pruebas); vacío = AWS
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
     @Bean
     public AmazonS3 s3Client() {
         // Al no especificar credenciales explícitamente, el SDK buscará automáticamente:
@@ -19,7 +24,14 @@ public class S3Config {
         // 2. Propiedades de sistema Java
         // 3. Credenciales en ~/.aws/credentials
         // 4. IAM ROLE del EC2 (¡Esto es lo que queremos!)
-        return AmazonS3ClientBuilder.standard()
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard();
+        if (endpoint != null && !endpoint.isBlank()) {
+            return builder
+                    .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region))
+                    .withPathStyleAccessEnabled(true)
+                    .build();
+        }
+        return builder
                 .withRegion(region)
                 .build();
     }
@@ -0,0 +1,192 @@
+package com.universidad.auditorio.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Ejecuta las migraciones versionadas de db/migration (V{n}__descripcion.sql)
+ * al iniciar la aplicación. Las versiones aplicadas se registran en la tabla
+ * schema_version, por lo que cada script corre una sola vez y los reinicios
+ * no tocan el esquema ni los datos. Corre durante el arranque del contexto,
+ * antes del EntityManagerFactory y JdbcTemplate (ver SchemaMigratorDetector).
+ * Si un script ya aplicado cambió, el arranque falla: el esquema real ya no
+ * corresponde a lo que dicen los archivos.
+ */
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern NOMBRE_SCRIPT = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String LOCK_NAME = "auditorio_schema_migrations";
+
+    private final DataSource dataSource;
+
+    @Value("${migraciones.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migraciones.location:classpath:db/migration/}")
+    private String location;
+
+    /** Acepta scripts ya aplicados que cambiaron y actualiza su checksum (usar una sola vez) */
+    @Value("${migraciones.reparar-checksums:false}")
+    private boolean repararChecksums;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (!enabled) {
+            logger.info("Migraciones deshabilitadas (migraciones.enabled=false)");
+            return;
+        }
+
+        List<Migracion> migraciones = cargarMigraciones();
+        try (Connection con = dataSource.getConnection()) {
+            // Evita que dos instancias migren al mismo tiempo
+            adquirirLock(con);
+            try {
+                crearTablaVersiones(con);
+                Map<Integer, Long> aplicadas = versionesAplicadas(con);
+
+                int nuevas = 0;
+                for (Migracion migracion : migraciones) {
+                    Long checksum = aplicadas.get(migracion.version());
+                    if (checksum != null) {
+                        if (checksum != migracion.checksum()) {
+                            validarChecksum(con, migracion, checksum);
+                        }
+                        continue;
+                    }
+                    aplicar(con, migracion);
+                    nuevas++;
+                }
+                logger.info("Esquema al día: {} migraciones nuevas, {} ya aplicadas", nuevas, aplicadas.size());
+            } finally {
+                liberarLock(con);
+            }
+        }
+    }
+
+    private List<Migracion> cargarMigraciones() throws IOException {
+        Resource[] recursos = new PathMatchingResourcePatternResolver().getResources(location + "V*__*.sql");
+        List<Migracion> migraciones = new ArrayList<>();
+        for (Resource recurso : recursos) {
+            Matcher m = NOMBRE_SCRIPT.matcher(recurso.getFilename() != null ? recurso.getFilename() : "");
+            if (!m.matches()) {
+                continue;
+            }
+            byte[] contenido = StreamUtils.copyToByteArray(recurso.getInputStream());
+            CRC32 crc = new CRC32();
+            crc.update(contenido);
+            migraciones.add(new Migracion(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                    crc.getValue(), recurso));
+        }
+        migraciones.sort(Comparator.comparingInt(Migracion::version));
+        return migraciones;
+    }
+
+    private void crearTablaVersiones(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY, " +
+                    "descripcion VARCHAR(255) NOT NULL, " +
+                    "checksum BIGINT NOT NULL, " +
+                    "aplicado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                    ") ENGINE=InnoDB");
+        }
+    }
+
+    private Map<Integer, Long> versionesAplicadas(Connection con) throws SQLException {
+        Map<Integer, Long> aplicadas = new HashMap<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return aplicadas;
+    }
+
+    private void aplicar(Connection con, Migracion migracion) throws SQLException {
+        long inicio = System.currentTimeMillis();
+        // MySQL hace commit implícito en DDL, así que cada sentencia se confirma al ejecutarse;
+        // la versión se registra solo si el script completo terminó sin errores.
+        ScriptUtils.executeSqlScript(con, new EncodedResource(migracion.recurso(), StandardCharsets.UTF_8));
+        try (PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO schema_version (version, descripcion, checksum) VALUES (?, ?, ?)")) {
+            ps.setInt(1, migracion.version());
+            ps.setString(2, migracion.descripcion());
+            ps.setLong(3, migracion.checksum());
+            ps.executeUpdate();
+        }
+        logger.info("Migración V{} ({}) aplicada en {} ms", migracion.version(), migracion.descripcion(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    private void validarChecksum(Connection con, Migracion migracion, long registrado) throws SQLException {
+        if (!repararChecksums) {
+            throw new IllegalStateException("La migración V" + migracion.version() + " (" + migracion.descripcion()
+                    + ") cambió después de aplicarse (checksum " + registrado + " != " + migracion.checksum()
+                    + "). Cree una migración nueva en vez de editar la aplicada, o arranque una vez con"
+                    + " migraciones.reparar-checksums=true si el cambio es equivalente");
+        }
+        try (PreparedStatement ps = con.prepareStatement("UPDATE schema_version SET checksum = ? WHERE version = ?")) {
+            ps.setLong(1, migracion.checksum());
+            ps.setInt(2, migracion.version());
+            ps.executeUpdate();
+        }
+        logger.warn("Checksum de la migración V{} reparado ({} -> {})", migracion.version(), registrado,
+                migracion.checksum());
+    }
+
+    private void adquirirLock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new IllegalStateException("No se pudo obtener el lock de migraciones");
+                }
+            }
+        }
+    }
+
+    private void liberarLock(Connection con) {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("No se pudo liberar el lock de migraciones: {}", e.getMessage());
+        }
+    }
+
+    private record Migracion(int version, String descripcion, long checksum, Resource recurso) {
+    }
+}
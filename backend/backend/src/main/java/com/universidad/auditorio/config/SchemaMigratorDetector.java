@@ -0,0 +1,18 @@
+package com.universidad.auditorio.config;
+
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+/**
+ * Registra SchemaMigrator como inicializador de la BD (META-INF/spring.factories),
+ * así el EntityManagerFactory, JdbcTemplate y demás beans que usan la BD se crean
+ * después de aplicar las migraciones.
+ */
+public class SchemaMigratorDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrator.class);
+    }
+}
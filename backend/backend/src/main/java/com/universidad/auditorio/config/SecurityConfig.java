@@ -1,14 +1,19 @@
 package com.universidad.auditorio.config;
 
+import com.universidad.auditorio.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -21,7 +26,7 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtService jwtService) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -34,9 +39,18 @@ public class SecurityConfig {
                 .requestMatchers("/api/auditorios/**").permitAll() // Todos los endpoints de auditorios son públicos
                 .requestMatchers("/api/reservas/**").permitAll() // Permitir reservas sin autenticación (para desarrollo)
                 .requestMatchers("/api/usuarios/**").authenticated() // Usuarios requieren autenticación
+                // Panel de administración (incluye los eventos de todas las reservas): solo administradores
+                .requestMatchers("/api/admin/**").hasRole("ADMINISTRADOR")
+                // Métricas internas (estado de S3, pools, latencias) solo para administradores
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMINISTRADOR")
                 // Por defecto permitir acceso (para desarrollo)
                 .anyRequest().permitAll()
-            );
+            )
+            // Sesión sin estado: el access token (JWT) se verifica en cada request sin ir a la BD
+            .addFilterBefore(new JwtAuthFilter(jwtService), UsernamePasswordAuthenticationFilter.class)
+            // 401 (no 403) sin token válido, para que el frontend renueve con el refresh token
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
         
         return http.build();
     }
@@ -70,7 +84,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(allowedOrigins);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH", "HEAD"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Access-Control-Allow-Origin", "Access-Control-Allow-Credentials"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "Access-Control-Allow-Origin", "Access-Control-Allow-Credentials",
+                "X-Total-Count", "X-Next-Cursor", "X-Trabajo-Id", "Location", "X-Refresh-Token"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // Cache preflight requests for 1 hour
         
@@ -79,9 +94,17 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * BCrypt con costo calibrado al arrancar y ejecutado en un pool acotado (ver PasswordHashingEncoder)
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${seguridad.password.hilos:0}") int hilos,
+                                           @Value("${seguridad.password.cola:50}") int cola,
+                                           @Value("${seguridad.bcrypt.objetivo-ms:250}") long objetivoMs,
+                                           @Value("${seguridad.bcrypt.costo-minimo:10}") int costoMinimo,
+                                           @Value("${seguridad.bcrypt.costo-maximo:14}") int costoMaximo) {
+        return new PasswordHashingEncoder(meterRegistry, hilos, cola, objetivoMs, costoMinimo, costoMaximo);
     }
 }
 
@@ -1,30 +1,30 @@
 package com.universidad.auditorio.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
-import java.nio.file.Paths;
+import java.util.Map;
 
 /**
- * Configuración para servir archivos estáticos desde la carpeta uploads
+ * Configuración para servir archivos desde la carpeta uploads
  * Solo necesario si usas LocalStorageService en lugar de S3
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Servir archivos desde la carpeta uploads
-        String uploadPath = Paths.get("uploads").toAbsolutePath().toString();
-        registry.addResourceHandler("/auditorios/**")
-                .addResourceLocations("file:" + uploadPath + "/auditorios/");
-        registry.addResourceHandler("/usuarios/**")
-                .addResourceLocations("file:" + uploadPath + "/usuarios/");
+    /**
+     * /auditorios/**, /usuarios/** y /media/** (archivos por contenido) los atiende MediaRequestHandler (Range, caché inmutable),
+     * después de los controladores y antes de los recursos estáticos por defecto.
+     */
+    @Bean
+    public SimpleUrlHandlerMapping mediaHandlerMapping(MediaRequestHandler mediaRequestHandler) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of(
+                "/auditorios/**", mediaRequestHandler,
+                "/usuarios/**", mediaRequestHandler,
+                "/media/**", mediaRequestHandler));
+        mapping.setOrder(1);
+        return mapping;
     }
 }
-
-
-
-
-
@@ -1,23 +1,38 @@
 package com.universidad.auditorio.controller;
 
 import com.universidad.auditorio.dto.AuditorioDTO;
+import com.universidad.auditorio.dto.ReservaDTO;
+import com.universidad.auditorio.dto.ReservaFiltroDTO;
+import com.universidad.auditorio.dto.TrabajoSubidaDTO;
 import com.universidad.auditorio.model.Auditorio;
 import com.universidad.auditorio.model.EstadoReserva;
 import com.universidad.auditorio.model.Reserva;
 import com.universidad.auditorio.model.RolUsuario;
 import com.universidad.auditorio.model.Usuario;
 import com.universidad.auditorio.service.AuditorioService;
+import com.universidad.auditorio.service.LocalStorageService;
+import com.universidad.auditorio.service.ReservaEventosService;
+import com.universidad.auditorio.service.ReservaExportService;
 import com.universidad.auditorio.service.ReservaService;
+import com.universidad.auditorio.service.SubidaArchivosService;
 import com.universidad.auditorio.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -28,30 +43,41 @@ public class AdminController {
     private final ReservaService reservaService;
     private final AuditorioService auditorioService;
     private final UsuarioService usuarioService;
+    private final ReservaExportService reservaExportService;
+    private final ReservaEventosService reservaEventosService;
+    private final SubidaArchivosService subidaArchivosService;
+    private final LocalStorageService localStorageService;
 
     /**
-     * Obtener todas las reservas pendientes (SOLICITADA y PENDIENTE)
+     * Obtener las reservas pendientes (SOLICITADA y PENDIENTE), paginadas por cursor
      */
     @GetMapping("/reservas/pendientes")
-    public ResponseEntity<List<Reserva>> getReservasPendientes() {
-        List<Reserva> todas = reservaService.getAllReservas();
-        List<Reserva> pendientes = todas.stream()
-                .filter(r -> r.getEstado() == EstadoReserva.SOLICITADA || 
-                            r.getEstado() == EstadoReserva.PENDIENTE)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(pendientes);
+    public ResponseEntity<List<ReservaDTO>> getReservasPendientes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        ReservaFiltroDTO filtro = new ReservaFiltroDTO();
+        filtro.setEstados(EnumSet.of(EstadoReserva.SOLICITADA, EstadoReserva.PENDIENTE));
+        return PaginaResponse.of(reservaService.buscarReservas(filtro, cursor, limite));
     }
 
     /**
-     * Obtener todas las reservas confirmadas (APROBADA)
+     * Obtener las reservas confirmadas (APROBADA), paginadas por cursor
      */
     @GetMapping("/reservas/confirmadas")
-    public ResponseEntity<List<Reserva>> getReservasConfirmadas() {
-        List<Reserva> todas = reservaService.getAllReservas();
-        List<Reserva> confirmadas = todas.stream()
-                .filter(r -> r.getEstado() == EstadoReserva.APROBADA)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(confirmadas);
+    public ResponseEntity<List<ReservaDTO>> getReservasConfirmadas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        ReservaFiltroDTO filtro = new ReservaFiltroDTO();
+        filtro.setEstados(EnumSet.of(EstadoReserva.APROBADA));
+        return PaginaResponse.of(reservaService.buscarReservas(filtro, cursor, limite));
+    }
+
+    /**
+     * Cambios en vivo de todas las reservas para la cola de administración (server-sent events)
+     */
+    @GetMapping(value = "/reservas/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirEventosAdmin() {
+        return reservaEventosService.suscribir(ReservaEventosService.CANAL_ADMIN);
     }
 
     /**
@@ -142,25 +168,20 @@ public class AdminController {
             auditorio.setUbicacion(ubicacion);
             auditorio.setActivo(activo);
             
-            Auditorio creado = auditorioService.createAuditorio(auditorio);
-            
-            // Si hay imagen, subirla
-            if (imagen != null && !imagen.isEmpty()) {
-                auditorioService.uploadImagen(creado.getId(), imagen);
+            // Se reserva lugar en la cola antes de guardar: si está llena no se persiste nada
+            try (SubidaArchivosService.PlazaSubida plaza = subidaArchivosService.reservarPlaza(imagen, video)) {
+                Auditorio creado = auditorioService.createAuditorio(auditorio);
+                
+                // Imagen y video se suben en segundo plano; el estado se consulta con el id del trabajo
+                String trabajoId = plaza.iniciar(creado.getId());
+                
+                // Retornar DTO con URLs completas (sin los archivos aún si hay un trabajo pendiente)
+                return SubidaResponse.of(trabajoId, HttpStatus.CREATED, auditorioService.toDTO(creado),
+                        "/api/admin/auditorios/subidas/");
             }
-            
-            // Si hay video, subirlo
-            if (video != null && !video.isEmpty()) {
-                auditorioService.uploadVideo(creado.getId(), video);
-            }
-            
-            // Recargar el auditorio para obtener las keys actualizadas
-            creado = auditorioService.getAuditorioById(creado.getId())
-                    .orElse(creado);
-            
-            // Retornar DTO con URLs completas
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(auditorioService.toDTO(creado));
+        } catch (RejectedExecutionException e) {
+            // Cola de subidas llena: GlobalExceptionHandler responde 503 con Retry-After
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error: " + e.getMessage());
@@ -184,7 +205,8 @@ public class AdminController {
             @RequestParam(value = "activo", required = false) Boolean activo,
             @RequestParam(value = "imagen", required = false) MultipartFile imagen,
             @RequestParam(value = "video", required = false) MultipartFile video) {
-        try {
+        // Se reserva lugar en la cola antes de actualizar: si está llena no se modifica nada
+        try (SubidaArchivosService.PlazaSubida plaza = subidaArchivosService.reservarPlaza(imagen, video)) {
             // Obtener el auditorio existente
             Auditorio auditorio = auditorioService.getAuditorioById(id)
                     .orElseThrow(() -> new RuntimeException("Auditorio no encontrado"));
@@ -201,22 +223,15 @@ public class AdminController {
             // Actualizar el auditorio
             Auditorio actualizado = auditorioService.updateAuditorio(id, auditorio);
             
-            // Si hay nueva imagen, subirla
-            if (imagen != null && !imagen.isEmpty()) {
-                auditorioService.uploadImagen(id, imagen);
-            }
-            
-            // Si hay nuevo video, subirlo
-            if (video != null && !video.isEmpty()) {
-                auditorioService.uploadVideo(id, video);
-            }
-            
-            // Recargar el auditorio para obtener las keys actualizadas
-            actualizado = auditorioService.getAuditorioById(id)
-                    .orElse(actualizado);
+            // Nueva imagen y/o video en segundo plano
+            String trabajoId = plaza.iniciar(id);
             
             // Retornar DTO con URLs completas
-            return ResponseEntity.ok(auditorioService.toDTO(actualizado));
+            return SubidaResponse.of(trabajoId, HttpStatus.OK, auditorioService.toDTO(actualizado),
+                    "/api/admin/auditorios/subidas/");
+        } catch (RejectedExecutionException e) {
+            // Cola de subidas llena: GlobalExceptionHandler responde 503 con Retry-After
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error: " + e.getMessage());
@@ -226,6 +241,30 @@ public class AdminController {
         }
     }
 
+    /**
+     * Estado de una subida de archivos de auditorio en segundo plano
+     */
+    @GetMapping("/auditorios/subidas/{trabajoId}")
+    public ResponseEntity<TrabajoSubidaDTO> getTrabajoSubida(@PathVariable String trabajoId) {
+        return subidaArchivosService.getTrabajo(trabajoId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Listar los objetos del almacenamiento local, paginados por cursor
+     */
+    @GetMapping("/almacenamiento/objetos")
+    public ResponseEntity<?> listarObjetosLocales(@RequestParam(required = false) String prefijo,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "100") int limite) {
+        try {
+            return PaginaResponse.of(localStorageService.listar(prefijo, cursor, Math.max(1, Math.min(limite, 1000))));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
+        }
+    }
+
     /**
      * Eliminar un auditorio (solo admin)
      */
@@ -269,6 +308,7 @@ public class AdminController {
             usuario.setCiclo(ciclo);
             usuario.setGrupo(grupo);
             usuario.setCarreraProfesional(carreraProfesional);
+            usuarioService.validarImagen(imagen);
             
             Usuario nuevoUsuario = usuarioService.createUsuario(usuario);
             
@@ -291,6 +331,9 @@ public class AdminController {
             
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(nuevoUsuario);
+        } catch (RejectedExecutionException e) {
+            // Hashing de contraseñas saturado: GlobalExceptionHandler responde 503 con Retry-After
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error: " + e.getMessage());
@@ -310,6 +353,9 @@ public class AdminController {
             nuevoUsuario.setPassword(null); // No devolver el password
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(nuevoUsuario);
+        } catch (RejectedExecutionException e) {
+            // Hashing de contraseñas saturado: GlobalExceptionHandler responde 503 con Retry-After
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error: " + e.getMessage());
@@ -320,32 +366,45 @@ public class AdminController {
     }
 
     /**
-     * Obtener todas las reservas filtradas por rol de usuario
+     * Obtener reservas combinando filtros (estados, rol, auditorio, usuario, rango de fechas),
+     * resueltos en BD y paginados por cursor
      */
     @GetMapping("/reservas/filtro")
-    public ResponseEntity<List<Reserva>> getReservasFiltradas(
-            @RequestParam(required = false) RolUsuario rol) {
-        List<Reserva> todas = reservaService.getAllReservas();
-        
-        if (rol != null) {
-            List<Reserva> filtradas = todas.stream()
-                    .filter(r -> r.getUsuario() != null && 
-                                r.getUsuario().getRol() == rol)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(filtradas);
-        }
-        
-        return ResponseEntity.ok(todas);
+    public ResponseEntity<List<ReservaDTO>> getReservasFiltradas(
+            @RequestParam(required = false) Set<EstadoReserva> estado,
+            @RequestParam(required = false) RolUsuario rol,
+            @RequestParam(required = false) Long auditorioId,
+            @RequestParam(required = false) Long usuarioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        ReservaFiltroDTO filtro = new ReservaFiltroDTO(estado, rol, auditorioId, usuarioId, desde, hasta);
+        return PaginaResponse.of(reservaService.buscarReservas(filtro, cursor, limite));
     }
 
     /**
-     * Obtener historial completo de reservas (todas las reservas realizadas o en curso)
+     * Obtener historial completo de reservas (todas las reservas realizadas o en curso), paginado por cursor
      */
     @GetMapping("/reservas/historial")
-    public ResponseEntity<List<Reserva>> getHistorialReservas() {
-        List<Reserva> todas = reservaService.getAllReservas();
-        // Filtrar solo las que no están canceladas o rechazadas (o incluir todas según necesidad)
-        return ResponseEntity.ok(todas);
+    public ResponseEntity<List<ReservaDTO>> getHistorialReservas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return PaginaResponse.of(reservaService.buscarReservas(new ReservaFiltroDTO(), cursor, limite));
     }
-}
 
+    /**
+     * Exportar el historial completo en CSV o NDJSON. Se envía en streaming:
+     * los primeros bytes salen de inmediato y el heap no crece con el tamaño del historial.
+     * El plazo es spring.mvc.async.request-timeout (solo este endpoint usa el plazo por defecto).
+     */
+    @GetMapping("/reservas/historial/export")
+    public ResponseEntity<StreamingResponseBody> exportarHistorial(
+            @RequestParam(defaultValue = "CSV") ReservaExportService.Formato formato) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, formato.getContentType() + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"historial-reservas." + formato.getExtension() + "\"")
+                .body(out -> reservaExportService.exportarHistorial(formato, out));
+    }
+}
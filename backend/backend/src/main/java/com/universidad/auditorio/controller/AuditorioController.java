@@ -1,16 +1,29 @@
 package com.universidad.auditorio.controller;
 
+import com.universidad.auditorio.config.CabecerasCondicionales;
+import com.universidad.auditorio.dto.AuditorioBusquedaDTO;
 import com.universidad.auditorio.dto.AuditorioDTO;
+import com.universidad.auditorio.dto.TrabajoSubidaDTO;
+import com.universidad.auditorio.dto.GrillaOcupacionDTO;
 import com.universidad.auditorio.model.Auditorio;
 import com.universidad.auditorio.service.AuditorioService;
+import com.universidad.auditorio.service.CatalogoCache;
+import com.universidad.auditorio.service.SubidaArchivosService;
+import com.universidad.auditorio.service.DisponibilidadService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auditorios")
@@ -19,15 +32,73 @@ import java.util.List;
 public class AuditorioController {
 
     private final AuditorioService auditorioService;
+    private final DisponibilidadService disponibilidadService;
+    private final CatalogoCache catalogoCache;
+    private final SubidaArchivosService subidaArchivosService;
 
     @GetMapping
-    public ResponseEntity<List<AuditorioDTO>> getAllAuditorios() {
-        return ResponseEntity.ok(auditorioService.getAllAuditoriosDTO());
+    public ResponseEntity<byte[]> getAllAuditorios(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responderCatalogo(catalogoCache.obtener("todos", auditorioService::getAllAuditoriosDTO), ifNoneMatch);
     }
 
     @GetMapping("/public")
-    public ResponseEntity<List<AuditorioDTO>> getAuditoriosActivos() {
-        return ResponseEntity.ok(auditorioService.getAuditoriosActivosDTO());
+    public ResponseEntity<byte[]> getAuditoriosActivos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responderCatalogo(catalogoCache.obtener("activos", auditorioService::getAuditoriosActivosDTO), ifNoneMatch);
+    }
+
+    /**
+     * Responde con los bytes ya serializados del catálogo, o 304 si el cliente
+     * ya tiene esa versión (sin consultar la BD ni pasar por Jackson).
+     */
+    private ResponseEntity<byte[]> responderCatalogo(CatalogoCache.Entrada entrada, String ifNoneMatch) {
+        if (CabecerasCondicionales.coincideIfNoneMatch(ifNoneMatch, entrada.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(entrada.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(entrada.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(entrada.cuerpo());
+    }
+
+    /**
+     * Grilla de ocupación de todos los auditorios activos (vistas semanal/mensual) en una sola llamada
+     */
+    @GetMapping("/ocupacion")
+    public ResponseEntity<?> getGrillaOcupacion(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            GrillaOcupacionDTO grilla = disponibilidadService.getGrilla(desde, hasta);
+            return ResponseEntity.ok(grilla);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Buscar auditorios libres con capacidad suficiente para una fecha y horario.
+     * Opcionalmente acepta flexibilidad (minutos) para proponer horarios alternativos.
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarAuditorios(
+            @RequestParam Integer capacidad,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime horaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime horaFin,
+            @RequestParam(required = false) Integer flexibilidadMinutos) {
+        try {
+            List<AuditorioBusquedaDTO> resultados = disponibilidadService.buscarAuditorios(
+                    capacidad, fecha, horaInicio, horaFin, flexibilidadMinutos);
+            return ResponseEntity.ok(resultados);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -37,6 +108,33 @@ public class AuditorioController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Ventanas libres del auditorio para todo un rango de fechas en una sola llamada
+     */
+    @GetMapping("/{id}/disponibilidad")
+    public ResponseEntity<?> getDisponibilidad(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return disponibilidadService.getDisponibilidad(id, desde, hasta)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Estado de una subida de archivos en segundo plano (ver /con-archivos)
+     */
+    @GetMapping("/subidas/{trabajoId}")
+    public ResponseEntity<TrabajoSubidaDTO> getTrabajoSubida(@PathVariable String trabajoId) {
+        return subidaArchivosService.getTrabajo(trabajoId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping(value = "/con-archivos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> createAuditorioConArchivos(
             @RequestParam("nombre") String nombre,
@@ -54,24 +152,22 @@ public class AuditorioController {
             auditorio.setUbicacion(ubicacion);
             auditorio.setActivo(activo);
 
-            // 1. Guardar entidad base para tener ID
-            Auditorio creado = auditorioService.createAuditorio(auditorio);
-
-            // 2. Subir archivos si existen (esto actualiza las keys en BD)
-            if (imagen != null && !imagen.isEmpty()) {
-                auditorioService.uploadImagen(creado.getId(), imagen);
-            }
-            if (video != null && !video.isEmpty()) {
-                auditorioService.uploadVideo(creado.getId(), video);
-            }
+            // 1. Reservar lugar en la cola de subidas (si está llena no se guarda nada)
+            try (SubidaArchivosService.PlazaSubida plaza = subidaArchivosService.reservarPlaza(imagen, video)) {
+                // 2. Guardar entidad base para tener ID
+                Auditorio creado = auditorioService.createAuditorio(auditorio);
 
-            // 3. Recargar entidad actualizada desde BD
-            creado = auditorioService.getAuditorioById(creado.getId()).orElse(creado);
+                // 3. Encolar la subida de archivos (un worker actualiza las keys en BD al terminar)
+                String trabajoId = plaza.iniciar(creado.getId());
 
-            // 4. Convertir a DTO (AQUÍ SE GENERAN LAS URLS FIRMADAS)
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(auditorioService.toDTO(creado));
+                // 4. Convertir a DTO; 202 + id del trabajo si quedaron archivos subiéndose
+                return SubidaResponse.of(trabajoId, HttpStatus.CREATED, auditorioService.toDTO(creado),
+                        "/api/auditorios/subidas/");
+            }
 
+        } catch (RejectedExecutionException e) {
+            // Cola de subidas llena: GlobalExceptionHandler responde 503 con Retry-After
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
         } catch (Exception e) {
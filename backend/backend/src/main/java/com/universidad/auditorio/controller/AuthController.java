@@ -1,14 +1,17 @@
 package com.universidad.auditorio.controller;
 
 import com.universidad.auditorio.model.Usuario;
+import com.universidad.auditorio.service.JwtService;
 import com.universidad.auditorio.service.UsuarioService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -19,6 +22,9 @@ public class AuthController {
 
     private final UsuarioService usuarioService;
     private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+
+    static final String HEADER_REFRESH = "X-Refresh-Token";
 
     /**
      * Endpoint para crear usuarios (solo para administradores o carga masiva)
@@ -31,6 +37,9 @@ public class AuthController {
             // No devolver el password
             nuevoUsuario.setPassword(null);
             return ResponseEntity.ok(nuevoUsuario);
+        } catch (RejectedExecutionException e) {
+            // Hashing de contraseñas saturado: GlobalExceptionHandler responde 503 con Retry-After
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
@@ -39,6 +48,8 @@ public class AuthController {
     /**
      * Login con email (nombre.apellido) y contraseña (DNI)
      * Ejemplo: email: "david.romero", password: "12345678" (DNI)
+     * El cuerpo sigue siendo el usuario; los tokens viajan en las cabeceras
+     * Authorization (access token) y X-Refresh-Token.
      */
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
@@ -47,9 +58,11 @@ public class AuthController {
                 .map(usuario -> {
                     // La contraseña es el DNI (sin hashear en el request)
                     if (passwordEncoder.matches(request.getPassword(), usuario.getPassword())) {
+                        // Hash con costo anterior al calibrado: se rehace ahora que se conoce la contraseña
+                        usuarioService.rehashSiCorresponde(usuario, request.getPassword());
                         // No devolver el password
                         usuario.setPassword(null);
-                        return ResponseEntity.ok(usuario);
+                        return ResponseEntity.ok().headers(tokens(usuario)).body(usuario);
                     } else {
                         return ResponseEntity.status(401).body("Credenciales inválidas");
                     }
@@ -57,6 +70,25 @@ public class AuthController {
                 .orElse(ResponseEntity.status(401).body("Usuario no encontrado"));
     }
 
+    /**
+     * Renueva los tokens con un refresh token vigente. Vuelve a leer el usuario para
+     * tomar su rol actual (y rechazar usuarios eliminados).
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        return jwtService.verificar(request.getRefreshToken(), JwtService.TIPO_REFRESH)
+                .flatMap(token -> usuarioService.getUsuarioById(token.usuarioId()))
+                .<ResponseEntity<?>>map(usuario -> ResponseEntity.noContent().headers(tokens(usuario)).build())
+                .orElse(ResponseEntity.status(401).body("Sesión expirada"));
+    }
+
+    private HttpHeaders tokens(Usuario usuario) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtService.generarAccessToken(usuario));
+        headers.set(HEADER_REFRESH, jwtService.generarRefreshToken(usuario));
+        return headers;
+    }
+
     /**
      * Endpoint temporal para regenerar usuarios con hashes correctos
      * SOLO PARA DESARROLLO - ELIMINAR EN PRODUCCIÓN
@@ -70,7 +102,7 @@ public class AuthController {
             return ResponseEntity.ok(Map.of(
                 "message", "Hash BCrypt generado para '12345678'",
                 "hash", newHash,
-                "instrucciones", "Actualiza el schema.sql con este hash y reinicia la aplicación"
+                "instrucciones", "Actualiza db/migration/V1__esquema_inicial.sql con este hash y reinicia la aplicación"
             ));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
@@ -82,6 +114,11 @@ public class AuthController {
         private String email; // nombre.apellido (ej: david.romero)
         private String password; // DNI de 8 dígitos
     }
+
+    @Data
+    static class RefreshRequest {
+        private String refreshToken;
+    }
 }
 
 
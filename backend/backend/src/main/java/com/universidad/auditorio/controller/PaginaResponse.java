@@ -0,0 +1,30 @@
+package com.universidad.auditorio.controller;
+
+import com.universidad.auditorio.dto.PaginaDTO;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Construye respuestas paginadas: el cuerpo sigue siendo la lista (compatible
+ * con el frontend) y el cursor/total viajan en cabeceras.
+ */
+final class PaginaResponse {
+
+    static final String HEADER_TOTAL = "X-Total-Count";
+    static final String HEADER_SIGUIENTE = "X-Next-Cursor";
+
+    private PaginaResponse() {
+    }
+
+    static <T> ResponseEntity<List<T>> of(PaginaDTO<T> pagina) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (pagina.getTotal() != null) {
+            builder.header(HEADER_TOTAL, String.valueOf(pagina.getTotal()));
+        }
+        if (pagina.getSiguienteCursor() != null) {
+            builder.header(HEADER_SIGUIENTE, pagina.getSiguienteCursor());
+        }
+        return builder.body(pagina.getItems());
+    }
+}
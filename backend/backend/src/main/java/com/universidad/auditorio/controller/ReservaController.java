@@ -1,16 +1,24 @@
 package com.universidad.auditorio.controller;
 
+import com.universidad.auditorio.dto.ReservaDTO;
+import com.universidad.auditorio.dto.ReservaFiltroDTO;
 import com.universidad.auditorio.dto.ReservaRequestDTO;
+import com.universidad.auditorio.dto.ReservaSerieRequestDTO;
+import com.universidad.auditorio.dto.ReservaSerieResultadoDTO;
 import com.universidad.auditorio.model.Auditorio;
 import com.universidad.auditorio.model.EstadoReserva;
 import com.universidad.auditorio.model.Reserva;
 import com.universidad.auditorio.model.Usuario;
+import com.universidad.auditorio.service.AuditorioCatalogo;
+import com.universidad.auditorio.service.ReservaEventosService;
 import com.universidad.auditorio.service.ReservaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -22,21 +30,40 @@ import java.util.List;
 public class ReservaController {
 
     private final ReservaService reservaService;
+    private final ReservaEventosService reservaEventosService;
+    private final AuditorioCatalogo auditorioCatalogo;
 
+    /**
+     * Listado paginado por cursor (fecha, id). El total y el siguiente cursor van en cabeceras.
+     */
     @GetMapping
-    public ResponseEntity<List<Reserva>> getAllReservas() {
-        return ResponseEntity.ok(reservaService.getAllReservas());
+    public ResponseEntity<List<ReservaDTO>> getAllReservas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return PaginaResponse.of(reservaService.buscarReservas(new ReservaFiltroDTO(), cursor, limite));
     }
 
     @GetMapping("/auditorio/{auditorioId}")
-    public ResponseEntity<List<Reserva>> getReservasByAuditorio(@PathVariable Long auditorioId) {
+    public ResponseEntity<List<ReservaDTO>> getReservasByAuditorio(@PathVariable Long auditorioId) {
         return ResponseEntity.ok(reservaService.getReservasByAuditorio(auditorioId));
     }
 
+    /**
+     * Cambios en vivo de las reservas de un auditorio (server-sent events)
+     */
+    @GetMapping(value = "/auditorio/{auditorioId}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventosAuditorio(@PathVariable Long auditorioId) {
+        // Solo auditorios existentes: cada id abre un canal y la ruta es pública
+        if (!auditorioCatalogo.existe(auditorioId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(reservaEventosService.suscribir(ReservaEventosService.canalAuditorio(auditorioId)));
+    }
+
     @GetMapping("/usuario/{usuarioId}")
     public ResponseEntity<?> getReservasByUsuario(@PathVariable Long usuarioId) {
         try {
-            List<Reserva> reservas = reservaService.getReservasByUsuario(usuarioId);
+            List<ReservaDTO> reservas = reservaService.getReservasByUsuario(usuarioId);
             // Log para debugging
             System.out.println("Reservas encontradas para usuario " + usuarioId + ": " + reservas.size());
             return ResponseEntity.ok(reservas);
@@ -54,7 +81,7 @@ public class ReservaController {
     }
 
     @GetMapping("/auditorio/{auditorioId}/fecha")
-    public ResponseEntity<List<Reserva>> getReservasByAuditorioAndFecha(
+    public ResponseEntity<List<ReservaDTO>> getReservasByAuditorioAndFecha(
             @PathVariable Long auditorioId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
         return ResponseEntity.ok(reservaService.getReservasByAuditorioAndFecha(auditorioId, fecha));
@@ -87,6 +114,24 @@ public class ReservaController {
         }
     }
 
+    /**
+     * Crear una serie recurrente (semanal/quincenal) en una sola llamada.
+     * Responde 409 con las ocurrencias en conflicto si no se pidió omitirlas.
+     */
+    @PostMapping("/serie")
+    public ResponseEntity<?> createSerie(@RequestBody ReservaSerieRequestDTO request) {
+        try {
+            ReservaSerieResultadoDTO resultado = reservaService.createSerie(request);
+            if (resultado.getCreadas().isEmpty() && !resultado.getConflictos().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(resultado);
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(resultado);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateReserva(
             @PathVariable Long id,
@@ -0,0 +1,31 @@
+package com.universidad.auditorio.controller;
+
+import com.universidad.auditorio.dto.AuditorioDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+
+/**
+ * Respuestas de alta/edición de auditorios con archivos: el cuerpo sigue siendo el
+ * auditorio (compatible con el frontend) y, si quedó una subida en segundo plano,
+ * se responde 202 con el id del trabajo en cabecera y la URL de su estado.
+ */
+final class SubidaResponse {
+
+    static final String HEADER_TRABAJO = "X-Trabajo-Id";
+
+    private SubidaResponse() {
+    }
+
+    static ResponseEntity<AuditorioDTO> of(String trabajoId, HttpStatus sinTrabajo, AuditorioDTO auditorio,
+                                           String rutaEstado) {
+        if (trabajoId == null) {
+            return ResponseEntity.status(sinTrabajo).body(auditorio);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HEADER_TRABAJO, trabajoId)
+                .location(URI.create(rutaEstado + trabajoId))
+                .body(auditorio);
+    }
+}
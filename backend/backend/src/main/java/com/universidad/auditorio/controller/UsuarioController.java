@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/usuarios")
@@ -35,6 +36,9 @@ public class UsuarioController {
             @RequestBody Usuario usuario) {
         try {
             return ResponseEntity.ok(usuarioService.updateUsuario(id, usuario));
+        } catch (RejectedExecutionException e) {
+            // Hashing de contraseñas saturado: GlobalExceptionHandler responde 503
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
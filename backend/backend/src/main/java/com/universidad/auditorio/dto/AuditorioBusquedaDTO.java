@@ -0,0 +1,21 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * DTO con un resultado de búsqueda de auditorio libre ("buscar sala")
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditorioBusquedaDTO {
+    private AuditorioDTO auditorio;
+    private Boolean disponible;        // true si el horario solicitado está libre tal cual
+    private LocalTime horaInicio;      // Horario propuesto (el solicitado o la alternativa más cercana)
+    private LocalTime horaFin;
+    private Integer desplazamientoMinutos; // Diferencia con la hora solicitada (0 si es exacto)
+}
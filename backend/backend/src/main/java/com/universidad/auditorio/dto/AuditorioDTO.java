@@ -17,6 +17,9 @@ public class AuditorioDTO {
     private String descripcion;
     private String ubicacion;
     private String imagenUrl;  // URL completa construida desde la llave
+    private String imagenThumbnailUrl; // Variante reducida (160px); null si aún no se generó
+    private String imagenCardUrl;      // Variante para tarjetas (480px)
+    private String imagenFullUrl;      // Variante para vista completa (1600px)
     private String videoUrl;   // URL completa construida desde la llave
     private Boolean activo;
 }
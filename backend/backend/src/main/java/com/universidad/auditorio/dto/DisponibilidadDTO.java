@@ -0,0 +1,39 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * DTO con las ventanas libres de un auditorio en un rango de fechas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilidadDTO {
+    private Long auditorioId;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private Integer slotMinutos;
+    private List<DiaDTO> dias;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DiaDTO {
+        private LocalDate fecha;
+        private List<VentanaDTO> libres;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class VentanaDTO {
+        private LocalTime horaInicio;
+        private LocalTime horaFin;
+    }
+}
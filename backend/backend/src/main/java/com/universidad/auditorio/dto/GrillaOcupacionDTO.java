@@ -0,0 +1,27 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO columnar con la ocupación de todos los auditorios en un rango de fechas.
+ * Cada arreglo por celda tiene auditorioIds.size() * fechas.size() posiciones;
+ * la celda (auditorio a, día d) está en el índice a * fechas.size() + d.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GrillaOcupacionDTO {
+    private LocalDate desde;
+    private LocalDate hasta;
+    private List<Long> auditorioIds;
+    private List<LocalDate> fechas;
+    private int[] minutosOcupados;            // Minutos reservados (sin canceladas) por celda
+    private Map<String, int[]> conteos;       // Estado -> cantidad de reservas por celda
+    private int[][] intervalos;               // Por celda: [inicio1, fin1, inicio2, fin2, ...] en minutos desde 00:00, fusionados
+}
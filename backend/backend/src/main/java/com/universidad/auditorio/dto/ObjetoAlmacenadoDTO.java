@@ -0,0 +1,21 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadatos de un objeto del almacenamiento local (archivo .meta junto a los datos)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjetoAlmacenadoDTO {
+    private String key;
+    private String contentType;
+    private Long tamano;
+    private String sha256;
+    private LocalDateTime creadoEn;
+}
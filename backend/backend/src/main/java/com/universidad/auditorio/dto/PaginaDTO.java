@@ -0,0 +1,20 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ * siguienteCursor es null en la última página; total solo se calcula en la primera.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> items;
+    private String siguienteCursor;
+    private Long total;
+}
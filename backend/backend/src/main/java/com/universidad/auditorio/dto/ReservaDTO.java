@@ -1,6 +1,7 @@
 package com.universidad.auditorio.dto;
 
 import com.universidad.auditorio.model.EstadoReserva;
+import com.universidad.auditorio.model.RolUsuario;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,6 +26,22 @@ public class ReservaDTO {
     private EstadoReserva estado;
     private String observaciones;
 
+    /**
+     * Constructor plano para expresiones de constructor JPQL/Criteria
+     * (SELECT new ReservaDTO(...)): arma el DTO directamente desde columnas,
+     * sin hidratar entidades ni registrarlas en el contexto de persistencia.
+     */
+    public ReservaDTO(Long id, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin,
+                      String motivo, EstadoReserva estado, String observaciones,
+                      Long auditorioId, String auditorioNombre, Integer auditorioCapacidad, String auditorioUbicacion,
+                      Long usuarioId, String usuarioEmail, String usuarioNombre, String usuarioApellido, RolUsuario usuarioRol) {
+        this(id,
+                new AuditorioSimpleDTO(auditorioId, auditorioNombre, auditorioCapacidad, auditorioUbicacion),
+                new UsuarioSimpleDTO(usuarioId, usuarioEmail, usuarioNombre, usuarioApellido,
+                        usuarioRol != null ? usuarioRol.name() : null),
+                fecha, horaInicio, horaFin, motivo, estado, observaciones);
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
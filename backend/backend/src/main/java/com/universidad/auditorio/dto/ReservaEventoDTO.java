@@ -0,0 +1,36 @@
+package com.universidad.auditorio.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.universidad.auditorio.model.EstadoReserva;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Delta compacto que se envía por SSE cuando una reserva cambia
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaEventoDTO {
+    private Tipo tipo;
+    private Long id;
+    private Long auditorioId;
+    // Solo en el canal de administración; el canal público por auditorio lo omite
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long usuarioId;
+    private LocalDate fecha;
+    private LocalTime horaInicio;
+    private LocalTime horaFin;
+    private EstadoReserva estado;
+
+    public enum Tipo {
+        CREADA,
+        ACTUALIZADA,
+        ESTADO,
+        CANCELADA
+    }
+}
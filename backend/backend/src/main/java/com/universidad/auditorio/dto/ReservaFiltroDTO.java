@@ -0,0 +1,25 @@
+package com.universidad.auditorio.dto;
+
+import com.universidad.auditorio.model.EstadoReserva;
+import com.universidad.auditorio.model.RolUsuario;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Criterios combinables para filtrar reservas en BD (todos opcionales)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaFiltroDTO {
+    private Set<EstadoReserva> estados;
+    private RolUsuario rol;
+    private Long auditorioId;
+    private Long usuarioId;
+    private LocalDate desde;
+    private LocalDate hasta;
+}
@@ -0,0 +1,43 @@
+package com.universidad.auditorio.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para solicitar una serie de reservas recurrentes (semanal o quincenal)
+ * Las ocurrencias se generan desde fechaInicio hasta fechaFin, omitiendo las excepciones
+ */
+@Data
+public class ReservaSerieRequestDTO {
+    private Long auditorioId;
+    private Long usuarioId;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private LocalTime horaInicio;
+    private LocalTime horaFin;
+    private Frecuencia frecuencia = Frecuencia.SEMANAL;
+    private List<LocalDate> excepciones = new ArrayList<>();
+    private String motivo;
+    private String observaciones;
+    // Si es true se crean las ocurrencias libres aunque otras tengan conflicto
+    private boolean omitirConflictos;
+
+    public enum Frecuencia {
+        SEMANAL(1),
+        QUINCENAL(2);
+
+        private final int semanas;
+
+        Frecuencia(int semanas) {
+            this.semanas = semanas;
+        }
+
+        public int getSemanas() {
+            return semanas;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO con el resultado de crear una serie: reservas creadas y ocurrencias en conflicto
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaSerieResultadoDTO {
+    private List<ReservaDTO> creadas;
+    private List<ConflictoDTO> conflictos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConflictoDTO {
+        private LocalDate fecha;
+        private String motivo;
+    }
+}
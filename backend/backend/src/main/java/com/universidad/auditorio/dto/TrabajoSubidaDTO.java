@@ -0,0 +1,33 @@
+package com.universidad.auditorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una subida de archivos de auditorio que corre en segundo plano
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrabajoSubidaDTO {
+    private String id;
+    private Long auditorioId;
+    private Estado estado;
+    private Integer archivosTotales;
+    private Integer archivosSubidos;
+    private String error;
+    private String advertencia;         // Ej.: archivos guardados en local porque S3 no estaba disponible
+    private LocalDateTime creadoEn;
+    private LocalDateTime terminadoEn;
+
+    public enum Estado {
+        PENDIENTE,
+        EN_PROCESO,
+        COMPLETADO,
+        COMPLETADO_LOCAL,               // Terminó, pero algún archivo quedó en el almacenamiento local
+        ERROR
+    }
+}
@@ -34,6 +34,9 @@ public class Auditorio {
     @Column(name = "imagen_key")
     private String imagenKey; // Llave/ruta del archivo (no URL completa)
     
+    @Column(name = "imagen_variantes", length = 50)
+    private String imagenVariantes; // Variantes generadas de la imagen: "thumb,card,full"
+    
     @Column(name = "video_key")
     private String videoKey; // Llave/ruta del archivo (no URL completa)
     
@@ -59,6 +59,9 @@ public class Usuario {
     @Column(name = "imagen_key")
     private String imagenKey; // Llave/ruta del archivo de imagen de perfil (no URL completa)
     
+    @Column(name = "imagen_variantes", length = 50)
+    private String imagenVariantes; // Variantes generadas de la imagen: "thumb,card,full"
+    
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonIgnore // No serializar la lista de reservas desde Usuario
     private List<Reserva> reservas;
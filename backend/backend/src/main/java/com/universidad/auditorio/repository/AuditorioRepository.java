@@ -2,7 +2,11 @@ package com.universidad.auditorio.repository;
 
 import com.universidad.auditorio.model.Auditorio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,9 +15,21 @@ import java.util.Optional;
 public interface AuditorioRepository extends JpaRepository<Auditorio, Long> {
     Optional<Auditorio> findByNombre(String nombre);
     List<Auditorio> findByActivoTrue();
-}
-
-
-
-
 
+    /**
+     * DELETE directo, sin pasar por el cascade de JPA (que carga todas las reservas)
+     */
+    @Modifying
+    @Query("DELETE FROM Auditorio a WHERE a.id = :id")
+    int eliminarPorId(@Param("id") Long id);
+
+    /**
+     * Registra las variantes de la imagen solo si el auditorio sigue teniendo esa imagen
+     * (0 filas si fue reemplazada mientras se generaban)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Auditorio a SET a.imagenVariantes = :variantes WHERE a.id = :id AND a.imagenKey = :imagenKey")
+    int actualizarVariantes(@Param("id") Long id, @Param("imagenKey") String imagenKey,
+                            @Param("variantes") String variantes);
+}
@@ -1,43 +1,113 @@
 package com.universidad.auditorio.repository;
 
+import com.universidad.auditorio.dto.ReservaDTO;
 import com.universidad.auditorio.model.Reserva;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ReservaRepository extends JpaRepository<Reserva, Long> {
-    @Query("SELECT DISTINCT r FROM Reserva r JOIN FETCH r.auditorio JOIN FETCH r.usuario")
-    List<Reserva> findAllWithRelations();
-    
-    @Query("SELECT DISTINCT r FROM Reserva r JOIN FETCH r.auditorio JOIN FETCH r.usuario WHERE r.auditorio.id = :auditorioId")
-    List<Reserva> findByAuditorioId(@Param("auditorioId") Long auditorioId);
-    
-    @Query("SELECT DISTINCT r FROM Reserva r JOIN FETCH r.auditorio JOIN FETCH r.usuario WHERE r.usuario.id = :usuarioId")
-    List<Reserva> findByUsuarioId(@Param("usuarioId") Long usuarioId);
-    
-    @Query("SELECT r FROM Reserva r JOIN FETCH r.auditorio JOIN FETCH r.usuario " +
+public interface ReservaRepository extends JpaRepository<Reserva, Long>, JpaSpecificationExecutor<Reserva>,
+        ReservaRepositoryCustom {
+
+    /** Columnas que arman un ReservaDTO con el constructor plano (ver ReservaDTO) */
+    String SELECT_DTO = "SELECT new com.universidad.auditorio.dto.ReservaDTO(" +
+           "r.id, r.fecha, r.horaInicio, r.horaFin, r.motivo, r.estado, r.observaciones, " +
+           "a.id, a.nombre, a.capacidad, a.ubicacion, " +
+           "u.id, u.email, u.nombre, u.apellido, u.rol) " +
+           "FROM Reserva r JOIN r.auditorio a JOIN r.usuario u ";
+
+    /**
+     * Historial completo como stream de solo avance. Con fetch size Integer.MIN_VALUE el
+     * driver de MySQL entrega las filas una a una en vez de materializar todo el resultado
+     * (la conexión queda ocupada hasta cerrar el stream). Debe consumirse dentro de una transacción.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(SELECT_DTO + "ORDER BY r.fecha DESC, r.id DESC")
+    Stream<ReservaDTO> streamHistorial();
+
+    /**
+     * Borrado en bloque (un solo DELETE) de las reservas de un auditorio, sin cargarlas.
+     */
+    @Modifying
+    @Query("DELETE FROM Reserva r WHERE r.auditorio.id = :auditorioId")
+    int deleteByAuditorioId(@Param("auditorioId") Long auditorioId);
+
+    @Modifying
+    @Query("DELETE FROM Reserva r WHERE r.usuario.id = :usuarioId")
+    int deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query(SELECT_DTO + "WHERE a.id = :auditorioId ORDER BY r.fecha DESC, r.id DESC")
+    List<ReservaDTO> findDTOByAuditorioId(@Param("auditorioId") Long auditorioId);
+
+    @Query(SELECT_DTO + "WHERE u.id = :usuarioId ORDER BY r.fecha DESC, r.id DESC")
+    List<ReservaDTO> findDTOByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query(SELECT_DTO + "WHERE a.id = :auditorioId AND r.fecha = :fecha ORDER BY r.horaInicio")
+    List<ReservaDTO> findDTOByAuditorioAndFecha(@Param("auditorioId") Long auditorioId, @Param("fecha") LocalDate fecha);
+
+    /**
+     * Verificación final de solapamiento contra BD: solo columnas indexadas, sin cargar entidades.
+     * Dos intervalos [a, b) y [c, d) se cruzan si a < d y c < b.
+     */
+    @Query("SELECT COUNT(r) > 0 FROM Reserva r " +
            "WHERE r.auditorio.id = :auditorioId " +
            "AND r.fecha = :fecha " +
-           "AND r.estado != 'CANCELADA' " +
-           "AND ((r.horaInicio <= :horaInicio AND r.horaFin > :horaInicio) OR " +
-           "(r.horaInicio < :horaFin AND r.horaFin >= :horaFin) OR " +
-           "(r.horaInicio >= :horaInicio AND r.horaFin <= :horaFin))")
-    List<Reserva> findConflictingReservas(
+           "AND r.estado <> com.universidad.auditorio.model.EstadoReserva.CANCELADA " +
+           "AND r.horaInicio < :horaFin AND r.horaFin > :horaInicio " +
+           "AND (:excludeId IS NULL OR r.id <> :excludeId)")
+    boolean existsConflicto(
         @Param("auditorioId") Long auditorioId,
         @Param("fecha") LocalDate fecha,
         @Param("horaInicio") LocalTime horaInicio,
-        @Param("horaFin") LocalTime horaFin
+        @Param("horaFin") LocalTime horaFin,
+        @Param("excludeId") Long excludeId
     );
+
     
-    @Query("SELECT r FROM Reserva r JOIN FETCH r.auditorio JOIN FETCH r.usuario " +
-           "WHERE r.auditorio.id = :auditorioId AND r.fecha = :fecha")
-    List<Reserva> findByAuditorioAndFecha(@Param("auditorioId") Long auditorioId, @Param("fecha") LocalDate fecha);
+    /**
+     * Intervalos [auditorioId, fecha, horaInicio, horaFin] no cancelados en un rango de fechas (para disponibilidad).
+     */
+    @Query("SELECT r.auditorio.id, r.fecha, r.horaInicio, r.horaFin FROM Reserva r " +
+           "WHERE r.fecha BETWEEN :desde AND :hasta " +
+           "AND r.estado <> com.universidad.auditorio.model.EstadoReserva.CANCELADA")
+    List<Object[]> findIntervalosEnRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Conteo de reservas [auditorioId, fecha, estado, cantidad] por celda y estado en un rango (grilla).
+     */
+    @Query("SELECT r.auditorio.id, r.fecha, r.estado, COUNT(r) FROM Reserva r " +
+           "WHERE r.fecha BETWEEN :desde AND :hasta " +
+           "GROUP BY r.auditorio.id, r.fecha, r.estado")
+    List<Object[]> countGrilla(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Intervalos [auditorioId, fecha, horaInicio, horaFin] no cancelados de un rango, ordenados
+     * por celda (auditorio, fecha) e inicio para fusionarlos en una sola pasada (grilla).
+     */
+    @Query("SELECT r.auditorio.id, r.fecha, r.horaInicio, r.horaFin FROM Reserva r " +
+           "WHERE r.fecha BETWEEN :desde AND :hasta " +
+           "AND r.estado <> com.universidad.auditorio.model.EstadoReserva.CANCELADA " +
+           "ORDER BY r.auditorio.id, r.fecha, r.horaInicio")
+    List<Object[]> findIntervalosGrilla(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT r.auditorio.id, r.fecha, r.horaInicio, r.horaFin FROM Reserva r " +
+           "WHERE r.auditorio.id = :auditorioId AND r.fecha BETWEEN :desde AND :hasta " +
+           "AND r.estado <> com.universidad.auditorio.model.EstadoReserva.CANCELADA")
+    List<Object[]> findIntervalosEnRangoByAuditorio(@Param("auditorioId") Long auditorioId,
+                                                    @Param("desde") LocalDate desde,
+                                                    @Param("hasta") LocalDate hasta);
 }
 
 
@@ -0,0 +1,19 @@
+package com.universidad.auditorio.repository;
+
+import com.universidad.auditorio.dto.ReservaDTO;
+import com.universidad.auditorio.model.Reserva;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas de lectura que proyectan directamente a DTO usando Specifications
+ */
+public interface ReservaRepositoryCustom {
+
+    /**
+     * Reservas que cumplen la especificación, ordenadas por (fecha, id) descendente,
+     * construidas como ReservaDTO sin cargar entidades. limite null = sin límite.
+     */
+    List<ReservaDTO> findDTOs(Specification<Reserva> spec, Integer limite);
+}
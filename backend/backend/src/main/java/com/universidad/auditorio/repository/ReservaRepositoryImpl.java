@@ -0,0 +1,56 @@
+package com.universidad.auditorio.repository;
+
+import com.universidad.auditorio.dto.ReservaDTO;
+import com.universidad.auditorio.model.Auditorio;
+import com.universidad.auditorio.model.Reserva;
+import com.universidad.auditorio.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Implementación de ReservaRepositoryCustom con Criteria API y cb.construct(...):
+ * solo se seleccionan las columnas del DTO (sin snapshots de dirty-checking).
+ */
+public class ReservaRepositoryImpl implements ReservaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ReservaDTO> findDTOs(Specification<Reserva> spec, Integer limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ReservaDTO> query = cb.createQuery(ReservaDTO.class);
+        Root<Reserva> r = query.from(Reserva.class);
+        Join<Reserva, Auditorio> a = r.join("auditorio");
+        Join<Reserva, Usuario> u = r.join("usuario");
+
+        query.select(cb.construct(ReservaDTO.class,
+                r.get("id"), r.get("fecha"), r.get("horaInicio"), r.get("horaFin"),
+                r.get("motivo"), r.get("estado"), r.get("observaciones"),
+                a.get("id"), a.get("nombre"), a.get("capacidad"), a.get("ubicacion"),
+                u.get("id"), u.get("email"), u.get("nombre"), u.get("apellido"), u.get("rol")));
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(r, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(cb.desc(r.get("fecha")), cb.desc(r.get("id")));
+
+        TypedQuery<ReservaDTO> typedQuery = entityManager.createQuery(query);
+        if (limite != null) {
+            typedQuery.setMaxResults(limite);
+        }
+        return typedQuery.getResultList();
+    }
+}
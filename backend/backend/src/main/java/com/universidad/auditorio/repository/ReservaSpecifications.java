@@ -0,0 +1,70 @@
+package com.universidad.auditorio.repository;
+
+import com.universidad.auditorio.dto.ReservaFiltroDTO;
+import com.universidad.auditorio.model.Reserva;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros dinámicos de reservas que se traducen a SQL (se apoyan en los índices
+ * de estado, auditorio_id, usuario_id y fecha) en vez de filtrar en memoria.
+ */
+public final class ReservaSpecifications {
+
+    private ReservaSpecifications() {
+    }
+
+    /**
+     * Combina todos los criterios presentes en el filtro; los nulos o vacíos se ignoran.
+     */
+    public static Specification<Reserva> desdeFiltro(ReservaFiltroDTO filtro) {
+        Specification<Reserva> spec = conRelaciones();
+        if (filtro == null) {
+            return spec;
+        }
+        if (filtro.getEstados() != null && !filtro.getEstados().isEmpty()) {
+            spec = spec.and((root, query, cb) -> root.get("estado").in(filtro.getEstados()));
+        }
+        if (filtro.getRol() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("usuario").get("rol"), filtro.getRol()));
+        }
+        if (filtro.getAuditorioId() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("auditorio").get("id"), filtro.getAuditorioId()));
+        }
+        if (filtro.getUsuarioId() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("usuario").get("id"), filtro.getUsuarioId()));
+        }
+        if (filtro.getDesde() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("fecha"), filtro.getDesde()));
+        }
+        if (filtro.getHasta() != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("fecha"), filtro.getHasta()));
+        }
+        return spec;
+    }
+
+    /**
+     * Keyset sobre (fecha, id) descendente: filas estrictamente posteriores al cursor.
+     */
+    public static Specification<Reserva> despuesDe(LocalDate fecha, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("fecha"), fecha),
+                cb.and(cb.equal(root.get("fecha"), fecha), cb.lessThan(root.get("id"), id)));
+    }
+
+    /**
+     * Trae auditorio y usuario en la misma consulta cuando se cargan entidades
+     * (no en los COUNT ni en las proyecciones a DTO).
+     */
+    private static Specification<Reserva> conRelaciones() {
+        return (root, query, cb) -> {
+            if (query.getResultType() == Reserva.class) {
+                root.fetch("auditorio", JoinType.INNER);
+                root.fetch("usuario", JoinType.INNER);
+            }
+            return null;
+        };
+    }
+}
@@ -2,7 +2,11 @@ package com.universidad.auditorio.repository;
 
 import com.universidad.auditorio.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -13,9 +17,26 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     boolean existsByEmail(String email);
     boolean existsByDni(String dni);
     boolean existsByCodigoUniversitario(String codigoUniversitario);
-}
-
-
-
-
 
+    /**
+     * DELETE directo, sin pasar por el cascade de JPA (que carga todas las reservas)
+     */
+    @Modifying
+    @Query("DELETE FROM Usuario u WHERE u.id = :id")
+    int eliminarPorId(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.password = :password WHERE u.id = :id")
+    int actualizarPassword(@Param("id") Long id, @Param("password") String password);
+
+    /**
+     * Registra las variantes de la imagen solo si el usuario sigue teniendo esa imagen
+     * (0 filas si fue reemplazada mientras se generaban)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.imagenVariantes = :variantes WHERE u.id = :id AND u.imagenKey = :imagenKey")
+    int actualizarVariantes(@Param("id") Long id, @Param("imagenKey") String imagenKey,
+                            @Param("variantes") String variantes);
+}
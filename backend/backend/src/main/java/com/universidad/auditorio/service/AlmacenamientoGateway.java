@@ -0,0 +1,439 @@
+package com.universidad.auditorio.service;
+
+import com.universidad.auditorio.dto.ObjetoAlmacenadoDTO;
+import com.universidad.auditorio.dto.PaginaDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Punto único de acceso al almacenamiento de archivos. Las llamadas a S3 corren en
+ * pools acotados (bulkheads) con un plazo por operación: uno para las subidas y otro
+ * para URLs, borrados y listados, así unas pocas subidas lentas no dejan sin lugar a
+ * las URLs del catálogo. Pasan además por un circuit breaker: si S3 falla o está
+ * lento, el circuito se abre y durante un tiempo se va directo al almacenamiento
+ * local sin esperar timeouts, así una caída de S3 no deja a los hilos de Tomcat (y a
+ * las reservas) esperando. Esperar lugar en un pool no cuenta como fallo de S3.
+ * Métricas: almacenamiento.s3.circuito (0 cerrado, 1 semiabierto, 2 abierto),
+ * almacenamiento.s3.llamadas (latencia por operación y resultado),
+ * almacenamiento.fallback (operaciones resueltas sin S3).
+ */
+@Service
+public class AlmacenamientoGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlmacenamientoGateway.class);
+
+    private final S3Service s3Service;
+    private final LocalStorageService localStorageService;
+    private final MediaBlobRegistry mediaBlobRegistry;
+    private final CatalogoCache catalogoCache;
+    private final MeterRegistry meterRegistry;
+
+    private final CircuitBreaker circuito;
+    private final ThreadPoolExecutor bulkhead;
+    private final ThreadPoolExecutor bulkheadSubidas;
+
+    @Value("${almacenamiento.s3.timeout-subida-ms:300000}")
+    private long timeoutSubidaMs;
+
+    /** Plazo por ronda de partes en paralelo de una subida multipart */
+    @Value("${almacenamiento.s3.timeout-ronda-partes-ms:60000}")
+    private long timeoutRondaPartesMs;
+
+    @Value("${almacenamiento.s3.timeout-url-ms:1000}")
+    private long timeoutUrlMs;
+
+    @Value("${almacenamiento.s3.timeout-eliminar-ms:5000}")
+    private long timeoutEliminarMs;
+
+    public AlmacenamientoGateway(S3Service s3Service, LocalStorageService localStorageService,
+                                 MediaBlobRegistry mediaBlobRegistry, CatalogoCache catalogoCache, MeterRegistry meterRegistry,
+                                 @Value("${almacenamiento.s3.circuito.umbral-fallos:5}") int umbralFallos,
+                                 @Value("${almacenamiento.s3.circuito.espera-ms:30000}") long esperaAbiertoMs,
+                                 @Value("${almacenamiento.s3.bulkhead.hilos:8}") int hilos,
+                                 @Value("${almacenamiento.s3.bulkhead.hilos-subida:4}") int hilosSubida) {
+        this.s3Service = s3Service;
+        this.localStorageService = localStorageService;
+        this.mediaBlobRegistry = mediaBlobRegistry;
+        this.catalogoCache = catalogoCache;
+        this.meterRegistry = meterRegistry;
+        // Al abrirse o cerrarse el circuito cambian las URLs que arma el catálogo (S3 o locales):
+        // se invalida una vez por cambio, no en cada llamada fallida
+        this.circuito = new CircuitBreaker(umbralFallos, esperaAbiertoMs, catalogoCache::invalidar);
+        this.bulkhead = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hilos * 2), r -> {
+                    Thread t = new Thread(r, "s3-bulkhead");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.bulkheadSubidas = new ThreadPoolExecutor(hilosSubida, hilosSubida, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hilosSubida * 2), r -> {
+                    Thread t = new Thread(r, "s3-bulkhead-subidas");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("almacenamiento.s3.circuito", circuito, c -> c.getEstado().ordinal())
+                .description("Estado del circuito de S3: 0 cerrado, 1 semiabierto, 2 abierto")
+                .register(meterRegistry);
+        registrarMetricas("general", bulkhead);
+        registrarMetricas("subidas", bulkheadSubidas);
+    }
+
+    /**
+     * Resultado de una subida: la llave y si terminó en el almacenamiento local
+     * porque S3 (configurado) no estuvo disponible.
+     */
+    public record Guardado(String key, boolean respaldoLocal) {
+    }
+
+    /**
+     * Sube el archivo a S3 y, si S3 no está disponible, al almacenamiento local.
+     * Devuelve la llave con la que quedó guardado.
+     */
+    public String subir(MultipartFile file, String carpeta) throws IOException {
+        return guardar(file, carpeta).key();
+    }
+
+    /**
+     * Como {@link #subir}, pero informa si hubo que recurrir al almacenamiento local.
+     */
+    public Guardado guardar(MultipartFile file, String carpeta) throws IOException {
+        // Modo por contenido: archivos idénticos comparten un solo objeto
+        if (mediaBlobRegistry.isHabilitado()) {
+            return guardarPorContenido(file);
+        }
+        try {
+            return new Guardado(llamarS3("subir", plazoSubida(file.getSize()), () -> s3Service.uploadFile(file, carpeta)), false);
+        } catch (Exception e) {
+            logger.info("Subida a almacenamiento local ({}): {}", carpeta, e.getMessage());
+            contarFallback("subir");
+            return new Guardado(localStorageService.uploadFile(file, carpeta), s3Service.isConfigurado());
+        }
+    }
+
+    /**
+     * Calcula el SHA-256 leyendo el archivo (sin subir nada) y solo lo sube si ese contenido
+     * no está registrado en ningún almacenamiento. La referencia se registra recién cuando
+     * la subida terminó y con el almacenamiento donde quedó: una subida a S3 que venció el
+     * plazo y termina tarde deja una copia sin registro (la borra la reconciliación) en lugar
+     * de una referencia contada dos veces.
+     */
+    private Guardado guardarPorContenido(MultipartFile file) throws IOException {
+        MediaBlobRegistry.Contenido contenido;
+        try (InputStream in = file.getInputStream()) {
+            contenido = MediaBlobRegistry.copiarConHash(in, OutputStream.nullOutputStream());
+        }
+        String key = MediaBlobRegistry.clave(contenido.hash(), file.getOriginalFilename());
+        String existente = mediaBlobRegistry.agregarReferencia(key);
+        if (existente != null) {
+            return new Guardado(key, esRespaldoLocal(existente));
+        }
+
+        String almacenamiento = subirContenido(file, key);
+        if (mediaBlobRegistry.registrar(key, almacenamiento, contenido) && !existeContenido(key, almacenamiento)) {
+            // Una baja concurrente borró el objeto entre la subida y el registro
+            almacenamiento = subirContenido(file, key);
+        }
+        return new Guardado(key, esRespaldoLocal(almacenamiento));
+    }
+
+    /**
+     * Escribe el objeto por contenido en S3 o, si no está disponible, en local.
+     * Devuelve el almacenamiento donde quedó.
+     */
+    private String subirContenido(MultipartFile file, String key) throws IOException {
+        try {
+            llamarS3("subir", plazoSubida(file.getSize()), () -> {
+                s3Service.subirContenido(file, key);
+                return key;
+            });
+            return MediaBlobRegistry.ALMACENAMIENTO_S3;
+        } catch (Exception e) {
+            logger.info("Subida de {} a almacenamiento local: {}", key, e.getMessage());
+            contarFallback("subir");
+            localStorageService.subirContenido(file, key);
+            return MediaBlobRegistry.ALMACENAMIENTO_LOCAL;
+        }
+    }
+
+    private boolean existeContenido(String key, String almacenamiento) {
+        if (MediaBlobRegistry.ALMACENAMIENTO_LOCAL.equals(almacenamiento)) {
+            return localStorageService.existe(key);
+        }
+        try {
+            return llamarS3("existe", timeoutUrlMs, () -> s3Service.existeObjeto(key));
+        } catch (Exception e) {
+            // Sin poder confirmarlo se asume que está; si faltara, la URL dará 404 hasta la próxima subida
+            return true;
+        }
+    }
+
+    private boolean esRespaldoLocal(String almacenamiento) {
+        return MediaBlobRegistry.ALMACENAMIENTO_LOCAL.equals(almacenamiento) && s3Service.isConfigurado();
+    }
+
+    /**
+     * Guarda contenido generado en memoria con una llave fija (S3 o, si no, local).
+     */
+    public void subirBytes(String key, byte[] contenido, String contentType) throws IOException {
+        try {
+            llamarS3("subir", plazoSubida(contenido.length), () -> {
+                s3Service.uploadBytes(key, contenido, contentType);
+                return key;
+            });
+        } catch (Exception e) {
+            contarFallback("subir");
+            localStorageService.uploadBytes(key, contenido, contentType);
+        }
+    }
+
+    /**
+     * Elimina el archivo de donde esté guardado. Las llaves por contenido descuentan una
+     * referencia y, si era la última, se borran del almacenamiento que anota el registro.
+     * Si S3 no responde el objeto queda huérfano y lo limpia después la reconciliación.
+     */
+    public void eliminar(String key) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        if (liberarContenido(key)) {
+            return;
+        }
+        if (localStorageService.existe(key)) {
+            localStorageService.deleteFile(key);
+            return;
+        }
+        try {
+            llamarS3("eliminar", timeoutEliminarMs, () -> {
+                s3Service.deleteFile(key);
+                return key;
+            });
+        } catch (Exception e) {
+            logger.warn("No se pudo eliminar {} de S3: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina varias llaves: las locales una a una (son borrados de archivos) y las de S3
+     * en una sola llamada de borrado múltiple.
+     */
+    public void eliminarLote(List<String> keys) {
+        List<String> remotas = new ArrayList<>();
+        for (String key : keys) {
+            if (key == null || key.isEmpty() || liberarContenido(key)) {
+                continue;
+            }
+            if (localStorageService.existe(key)) {
+                localStorageService.deleteFile(key);
+            } else {
+                remotas.add(key);
+            }
+        }
+        if (remotas.isEmpty()) {
+            return;
+        }
+        try {
+            eliminarEnS3(remotas);
+        } catch (Exception e) {
+            logger.warn("No se pudieron eliminar {} objetos de S3: {}", remotas.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Descuenta una referencia de una llave por contenido registrada (false si no lo es).
+     * Un fallo al borrar el objeto no revierte la baja: el objeto sin registro lo limpia
+     * la reconciliación.
+     */
+    private boolean liberarContenido(String key) {
+        if (!MediaBlobRegistry.esContenido(key)) {
+            return false;
+        }
+        return mediaBlobRegistry.liberar(key, almacenamiento -> {
+            try {
+                if (MediaBlobRegistry.ALMACENAMIENTO_LOCAL.equals(almacenamiento)) {
+                    localStorageService.eliminarContenido(key);
+                } else {
+                    llamarS3("eliminar", timeoutEliminarMs, () -> {
+                        s3Service.eliminarContenido(key);
+                        return key;
+                    });
+                }
+            } catch (Exception e) {
+                logger.warn("No se pudo eliminar {} de {}: {}", key, almacenamiento, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Borrado múltiple directo en S3 (sin mirar el almacenamiento local).
+     */
+    public void eliminarEnS3(List<String> keys) throws Exception {
+        llamarS3("eliminar", timeoutEliminarMs, () -> {
+            s3Service.deleteFiles(keys);
+            return keys.size();
+        });
+    }
+
+    /**
+     * Una página del listado del bucket (ver S3Service.listar), a través del circuito.
+     */
+    public PaginaDTO<ObjetoAlmacenadoDTO> listarS3(String cursor, int limite) throws Exception {
+        return llamarS3("listar", timeoutEliminarMs, () -> s3Service.listar(cursor, limite));
+    }
+
+    public boolean isS3Configurado() {
+        return s3Service.isConfigurado();
+    }
+
+    /**
+     * true si hay llamadas a S3 esperando lugar en el bulkhead general (el que usan las tareas
+     * de fondo, que ceden el paso).
+     */
+    public boolean isS3Ocupado() {
+        return !bulkhead.getQueue().isEmpty();
+    }
+
+    /**
+     * URL pública del archivo: presignada de S3 (de la caché si ya existe) o local.
+     */
+    public String urlPublica(String key) {
+        if (key == null) {
+            return null;
+        }
+        if (!s3Service.isConfigurado()) {
+            return "http://localhost:8080/" + key;
+        }
+        String cacheada = s3Service.getPresignedUrlCacheada(key);
+        if (cacheada != null) {
+            return cacheada;
+        }
+        try {
+            String url = llamarS3("url", timeoutUrlMs, () -> s3Service.getPresignedUrl(key));
+            if (url != null) {
+                return url;
+            }
+        } catch (Exception e) {
+            // La URL local queda en la caché del catálogo a lo sumo hasta el fin del tramo
+            // o hasta que el circuito cambie de estado
+            contarFallback("url");
+        }
+        return "http://localhost:8080/" + key;
+    }
+
+    /**
+     * Plazo de una subida: el fijo cubre un PUT simple; una subida por partes tiene además
+     * un plazo por ronda de partes en paralelo, así un video grande que sigue avanzando
+     * no se corta ni se cuenta como fallo en el circuito.
+     */
+    private long plazoSubida(long bytes) {
+        return Math.max(timeoutSubidaMs, s3Service.rondasDeSubida(bytes) * timeoutRondaPartesMs);
+    }
+
+    /**
+     * Ejecuta la llamada en el bulkhead que le corresponde (las subidas en el suyo).
+     * El plazo cuenta desde que se encola; si vence sin que la llamada haya empezado,
+     * el problema es la cola y no S3, así que no se informa como fallo al circuito.
+     */
+    private <T> T llamarS3(String operacion, long timeoutMs, Callable<T> llamada) throws Exception {
+        if (!s3Service.isConfigurado()) {
+            throw new IOException("AWS S3 no está configurado");
+        }
+        if (!circuito.permitir()) {
+            throw new IOException("S3 no disponible (circuito abierto)");
+        }
+
+        ThreadPoolExecutor pool = "subir".equals(operacion) ? bulkheadSubidas : bulkhead;
+        long inicio = System.nanoTime();
+        AtomicBoolean iniciada = new AtomicBoolean();
+        Future<T> futuro;
+        try {
+            futuro = pool.submit(() -> {
+                iniciada.set(true);
+                return llamada.call();
+            });
+        } catch (RejectedExecutionException e) {
+            circuito.cancelar();
+            registrar(operacion, "rechazada", inicio);
+            throw new IOException("Demasiadas operaciones de S3 en curso");
+        }
+
+        try {
+            T resultado = futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuito.exito();
+            registrar(operacion, "ok", inicio);
+            return resultado;
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            if (!iniciada.get()) {
+                circuito.cancelar();
+                registrar(operacion, "cola", inicio);
+                throw new IOException("Sin lugar para la operación de S3 en " + timeoutMs + " ms");
+            }
+            circuito.fallo();
+            registrar(operacion, "timeout", inicio);
+            throw new IOException("S3 no respondió en " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            circuito.fallo();
+            registrar(operacion, "error", inicio);
+            throw e.getCause() instanceof Exception causa ? causa : e;
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            circuito.cancelar();
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private void registrar(String operacion, String resultado, long inicioNanos) {
+        Timer.builder("almacenamiento.s3.llamadas")
+                .tag("operacion", operacion)
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void registrarMetricas(String nombre, ThreadPoolExecutor pool) {
+        Gauge.builder("almacenamiento.s3.bulkhead.activos", pool, ThreadPoolExecutor::getActiveCount)
+                .tag("bulkhead", nombre)
+                .register(meterRegistry);
+        Gauge.builder("almacenamiento.s3.bulkhead.cola", pool, b -> b.getQueue().size())
+                .tag("bulkhead", nombre)
+                .register(meterRegistry);
+    }
+
+    private void contarFallback(String operacion) {
+        Counter.builder("almacenamiento.fallback")
+                .tag("operacion", operacion)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        bulkhead.shutdownNow();
+        bulkheadSubidas.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.universidad.auditorio.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Archivo subido que ya se copió a un temporal propio, para poder procesarlo
+ * después de que termine el request (Spring borra los temporales del multipart al final).
+ */
+final class ArchivoTemporal implements MultipartFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoTemporal.class);
+
+    private final Path path;
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+
+    private ArchivoTemporal(Path path, String name, String originalFilename, String contentType, long size) {
+        this.path = path;
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    /**
+     * Copia el archivo del request a un temporal (suele ser un rename del temporal de Tomcat).
+     */
+    static ArchivoTemporal desde(MultipartFile file) throws IOException {
+        Path destino = Files.createTempFile("subida-", ".tmp");
+        try {
+            file.transferTo(destino);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(destino);
+            throw e;
+        }
+        return new ArchivoTemporal(destino, file.getName(), file.getOriginalFilename(), file.getContentType(),
+                file.getSize());
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    void eliminar() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("No se pudo eliminar el temporal {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,140 @@
+package com.universidad.auditorio.service;
+
+import com.universidad.auditorio.model.Auditorio;
+import com.universidad.auditorio.repository.AuditorioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Catálogo de auditorios en memoria. Los auditorios cambian pocas veces por
+ * ciclo pero se leen en casi todas las peticiones, así que las lecturas van a
+ * una foto inmutable publicada en una referencia volatile (sin locks), y cada
+ * escritura reconstruye la foto completa con una sola consulta y la reemplaza.
+ * Los auditorios de la foto son copias: no deben modificarse; para editar hay
+ * que leer la entidad del repositorio.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditorioCatalogo {
+
+    private final AuditorioRepository auditorioRepository;
+    private final CatalogoCache catalogoCache;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Todos los auditorios, ordenados por id.
+     */
+    public List<Auditorio> getTodos() {
+        return snapshot().todos();
+    }
+
+    /**
+     * Auditorios activos ordenados por capacidad ascendente.
+     */
+    public List<Auditorio> getActivosPorCapacidad() {
+        return snapshot().activosPorCapacidad();
+    }
+
+    /**
+     * Auditorios activos con al menos la capacidad indicada, de menor a mayor capacidad.
+     */
+    public List<Auditorio> getActivosConCapacidad(int capacidad) {
+        List<Auditorio> activos = snapshot().activosPorCapacidad();
+        // Primer auditorio con capacidad suficiente (búsqueda binaria sobre la lista ordenada)
+        int lo = 0;
+        int hi = activos.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (activos.get(mid).getCapacidad() < capacidad) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return activos.subList(lo, activos.size());
+    }
+
+    public Optional<Auditorio> findById(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(snapshot().porId().get(id));
+    }
+
+    public boolean existe(Long id) {
+        return id != null && snapshot().porId().containsKey(id);
+    }
+
+    /**
+     * Reconstruye la foto desde BD e invalida las respuestas cacheadas del catálogo.
+     * Dentro de una transacción se ejecuta después del commit.
+     */
+    public void recargar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reconstruir();
+                }
+            });
+        } else {
+            reconstruir();
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot actual = snapshot;
+        return actual != null ? actual : reconstruirSiFalta();
+    }
+
+    private synchronized Snapshot reconstruirSiFalta() {
+        return snapshot != null ? snapshot : reconstruir();
+    }
+
+    private synchronized Snapshot reconstruir() {
+        Map<Long, Auditorio> porId = new LinkedHashMap<>();
+        List<Auditorio> activos = new ArrayList<>();
+        List<Auditorio> leidos = new ArrayList<>(auditorioRepository.findAll());
+        leidos.sort(Comparator.comparing(Auditorio::getId));
+        for (Auditorio leido : leidos) {
+            Auditorio copia = copiar(leido);
+            porId.put(copia.getId(), copia);
+            if (Boolean.TRUE.equals(copia.getActivo())) {
+                activos.add(copia);
+            }
+        }
+        activos.sort(Comparator.comparing(Auditorio::getCapacidad).thenComparing(Auditorio::getId));
+
+        Snapshot nuevo = new Snapshot(Collections.unmodifiableMap(porId),
+                List.copyOf(porId.values()), List.copyOf(activos));
+        snapshot = nuevo;
+        catalogoCache.invalidar();
+        return nuevo;
+    }
+
+    private static Auditorio copiar(Auditorio a) {
+        Auditorio copia = new Auditorio();
+        copia.setId(a.getId());
+        copia.setNombre(a.getNombre());
+        copia.setCapacidad(a.getCapacidad());
+        copia.setDescripcion(a.getDescripcion());
+        copia.setUbicacion(a.getUbicacion());
+        copia.setImagenKey(a.getImagenKey());
+        copia.setImagenVariantes(a.getImagenVariantes());
+        copia.setVideoKey(a.getVideoKey());
+        copia.setActivo(a.getActivo());
+        return copia;
+    }
+
+    private record Snapshot(Map<Long, Auditorio> porId, List<Auditorio> todos,
+                            List<Auditorio> activosPorCapacidad) {
+    }
+}
@@ -3,9 +3,12 @@ package com.universidad.auditorio.service;
 import com.universidad.auditorio.dto.AuditorioDTO;
 import com.universidad.auditorio.model.Auditorio;
 import com.universidad.auditorio.repository.AuditorioRepository;
+import com.universidad.auditorio.repository.ReservaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -15,24 +18,27 @@ import java.util.stream.Collectors;
 public class AuditorioService {
 
     private final AuditorioRepository auditorioRepository;
-    private final S3Service s3Service;
-    private final LocalStorageService localStorageService;
+    private final AlmacenamientoGateway almacenamientoGateway;
+    private final AuditorioCatalogo auditorioCatalogo;
+    private final ImagenVariantesService imagenVariantesService;
+    private final ReservaRepository reservaRepository;
+    private final EliminacionMediaService eliminacionMediaService;
     // Eliminamos dependencia directa de FileUrlService para S3, usaremos S3Service
 
     public List<AuditorioDTO> getAllAuditoriosDTO() {
-        return auditorioRepository.findAll().stream()
+        return auditorioCatalogo.getTodos().stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
     public List<AuditorioDTO> getAuditoriosActivosDTO() {
-        return auditorioRepository.findByActivoTrue().stream()
+        return auditorioCatalogo.getActivosPorCapacidad().stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
     public Optional<AuditorioDTO> getAuditorioDTOById(Long id) {
-        return auditorioRepository.findById(id).map(this::toDTO);
+        return auditorioCatalogo.findById(id).map(this::toDTO);
     }
 
     public Optional<Auditorio> getAuditorioById(Long id) {
@@ -51,34 +57,39 @@ public class AuditorioService {
         dto.setUbicacion(auditorio.getUbicacion());
         dto.setActivo(auditorio.getActivo());
 
-        // Generar URL firmada para la imagen
+        // Generar URL firmada para la imagen y sus variantes reducidas
         if (auditorio.getImagenKey() != null) {
-            // Intentar obtener URL de S3, si falla (porque es local), construir URL local
-            String url = s3Service.getPresignedUrl(auditorio.getImagenKey());
-            if (url == null) {
-                // Fallback para archivos locales (si no se usa S3)
-                url = "http://localhost:8080/" + auditorio.getImagenKey();
+            dto.setImagenUrl(urlDeArchivo(auditorio.getImagenKey()));
+            for (ImagenVariantesService.Variante variante : ImagenVariantesService.parsear(auditorio.getImagenVariantes())) {
+                String url = urlDeArchivo(ImagenVariantesService.keyVariante(auditorio.getImagenKey(), variante));
+                switch (variante) {
+                    case THUMBNAIL -> dto.setImagenThumbnailUrl(url);
+                    case CARD -> dto.setImagenCardUrl(url);
+                    case FULL -> dto.setImagenFullUrl(url);
+                }
             }
-            dto.setImagenUrl(url);
         }
 
         // Generar URL firmada para el video
         if (auditorio.getVideoKey() != null) {
-            String url = s3Service.getPresignedUrl(auditorio.getVideoKey());
-            if (url == null) {
-                url = "http://localhost:8080/" + auditorio.getVideoKey();
-            }
-            dto.setVideoUrl(url);
+            dto.setVideoUrl(urlDeArchivo(auditorio.getVideoKey()));
         }
 
         return dto;
     }
 
+    private String urlDeArchivo(String key) {
+        // URL firmada de S3, o local si S3 no está disponible
+        return almacenamientoGateway.urlPublica(key);
+    }
+
     public Auditorio createAuditorio(Auditorio auditorio) {
         if (auditorioRepository.findByNombre(auditorio.getNombre()).isPresent()) {
             throw new RuntimeException("Ya existe un auditorio con el nombre: " + auditorio.getNombre());
         }
-        return auditorioRepository.save(auditorio);
+        Auditorio creado = auditorioRepository.save(auditorio);
+        auditorioCatalogo.recargar();
+        return creado;
     }
 
     public Auditorio updateAuditorio(Long id, Auditorio auditorioDetails) {
@@ -91,57 +102,93 @@ public class AuditorioService {
         auditorio.setUbicacion(auditorioDetails.getUbicacion());
         auditorio.setActivo(auditorioDetails.getActivo());
 
-        return auditorioRepository.save(auditorio);
+        Auditorio actualizado = auditorioRepository.save(auditorio);
+        auditorioCatalogo.recargar();
+        return actualizado;
     }
 
+    /**
+     * Elimina el auditorio con DELETEs en bloque (sus reservas primero) sin cargar su
+     * historial, y deja el borrado de archivos a la cola de segundo plano.
+     */
+    @Transactional
     public void deleteAuditorio(Long id) {
         Auditorio auditorio = auditorioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Auditorio no encontrado"));
 
-        // Eliminar archivos de S3 antes de borrar el registro
-        if (auditorio.getImagenKey() != null) s3Service.deleteFile(auditorio.getImagenKey());
-        if (auditorio.getVideoKey() != null) s3Service.deleteFile(auditorio.getVideoKey());
+        List<String> archivos = new ArrayList<>();
+        archivos.add(auditorio.getImagenKey());
+        archivos.add(auditorio.getVideoKey());
+        archivos.addAll(ImagenVariantesService.keysVariantes(auditorio.getImagenKey(), auditorio.getImagenVariantes()));
 
-        auditorioRepository.deleteById(id);
+        reservaRepository.deleteByAuditorioId(id);
+        auditorioRepository.eliminarPorId(id);
+        eliminacionMediaService.encolar(archivos);
+        auditorioCatalogo.recargar();
     }
 
     public String uploadImagen(Long auditorioId, MultipartFile file) throws Exception {
+        // Retornar URL firmada inmediatamente para mostrar en frontend
+        return almacenamientoGateway.urlPublica(reemplazarImagen(auditorioId, file).key());
+    }
+
+    /**
+     * Reemplaza la imagen del auditorio e informa dónde quedó guardada.
+     */
+    public AlmacenamientoGateway.Guardado reemplazarImagen(Long auditorioId, MultipartFile file) throws Exception {
+        imagenVariantesService.validarTamano(file);
         Auditorio auditorio = auditorioRepository.findById(auditorioId)
                 .orElseThrow(() -> new RuntimeException("Auditorio no encontrado"));
 
-        String key;
-        try {
-            // Borrar anterior si existe
-            if (auditorio.getImagenKey() != null) s3Service.deleteFile(auditorio.getImagenKey());
+        // Borrar anterior si existe
+        almacenamientoGateway.eliminar(auditorio.getImagenKey());
+        imagenVariantesService.eliminarVariantes(auditorio.getImagenKey(), auditorio.getImagenVariantes());
 
-            // Subir nueva
-            key = s3Service.uploadFile(file, "auditorios/imagenes");
-        } catch (Exception e) {
-            System.out.println("Fallback a local storage: " + e.getMessage());
-            key = localStorageService.uploadFile(file, "auditorios/imagenes");
-        }
+        // Subir nueva (S3, o local si S3 no está disponible)
+        AlmacenamientoGateway.Guardado guardado = almacenamientoGateway.guardar(file, "auditorios/imagenes");
+        String key = guardado.key();
 
         auditorio.setImagenKey(key);
+        auditorio.setImagenVariantes(null);
         auditorioRepository.save(auditorio);
+        auditorioCatalogo.recargar();
 
-        // Retornar URL firmada inmediatamente para mostrar en frontend
-        return s3Service.getPresignedUrl(key);
+        // Miniatura, tarjeta y completa se generan en segundo plano
+        String keyImagen = key;
+        imagenVariantesService.generar(key, file,
+                variantes -> registrarVariantes(auditorioId, keyImagen, variantes));
+        return guardado;
+    }
+
+    /**
+     * Guarda las variantes generadas, salvo que la imagen haya sido reemplazada mientras tanto.
+     */
+    private void registrarVariantes(Long auditorioId, String key, List<ImagenVariantesService.Variante> variantes) {
+        String codigos = ImagenVariantesService.codigos(variantes);
+        if (auditorioRepository.actualizarVariantes(auditorioId, key, codigos) > 0) {
+            auditorioCatalogo.recargar();
+        } else {
+            imagenVariantesService.eliminarVariantes(key, codigos);
+        }
     }
 
     public String uploadVideo(Long auditorioId, MultipartFile file) throws Exception {
+        return almacenamientoGateway.urlPublica(reemplazarVideo(auditorioId, file).key());
+    }
+
+    /**
+     * Reemplaza el video del auditorio e informa dónde quedó guardado.
+     */
+    public AlmacenamientoGateway.Guardado reemplazarVideo(Long auditorioId, MultipartFile file) throws Exception {
         Auditorio auditorio = auditorioRepository.findById(auditorioId)
                 .orElseThrow(() -> new RuntimeException("Auditorio no encontrado"));
 
-        String key;
-        try {
-            if (auditorio.getVideoKey() != null) s3Service.deleteFile(auditorio.getVideoKey());
-            key = s3Service.uploadFile(file, "auditorios/videos");
-        } catch (Exception e) {
-            key = localStorageService.uploadFile(file, "auditorios/videos");
-        }
+        almacenamientoGateway.eliminar(auditorio.getVideoKey());
+        AlmacenamientoGateway.Guardado guardado = almacenamientoGateway.guardar(file, "auditorios/videos");
 
-        auditorio.setVideoKey(key);
+        auditorio.setVideoKey(guardado.key());
         auditorioRepository.save(auditorio);
-        return s3Service.getPresignedUrl(key);
+        auditorioCatalogo.recargar();
+        return guardado;
     }
 }
\ No newline at end of file
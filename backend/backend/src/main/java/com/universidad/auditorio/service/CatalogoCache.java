@@ -0,0 +1,86 @@
+package com.universidad.auditorio.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache de las respuestas del catálogo de auditorios ya serializadas a JSON.
+ * Cada entrada lleva un ETag fuerte derivado del hash del cuerpo, así que es
+ * el mismo en todas las instancias y tras un reinicio mientras el contenido no
+ * cambie. La versión del catálogo (se incrementa en cada alta, modificación,
+ * baja o subida de archivos) solo decide cuándo regenerar la entrada.
+ * Las entradas también caducan por tramos de tiempo porque el JSON incluye
+ * URLs presignadas (válidas 1 hora).
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogoCache {
+
+    /** Duración de un tramo: bastante menor que la validez de las URLs presignadas */
+    static final long TRAMO_MS = 30 * 60 * 1000L;
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong(1);
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public record Entrada(long version, long tramo, String etag, byte[] cuerpo) {
+    }
+
+    /**
+     * Devuelve la respuesta serializada de la clave, generándola con el proveedor
+     * solo si no existe o quedó desactualizada.
+     */
+    public Entrada obtener(String clave, Supplier<?> proveedor) {
+        long versionActual = version.get();
+        long tramo = System.currentTimeMillis() / TRAMO_MS;
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.version() == versionActual && entrada.tramo() == tramo) {
+            return entrada;
+        }
+
+        byte[] cuerpo;
+        try {
+            cuerpo = objectMapper.writeValueAsBytes(proveedor.get());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando catálogo: " + e.getMessage(), e);
+        }
+        Entrada nueva = new Entrada(versionActual, tramo, etag(clave, cuerpo), cuerpo);
+        // Si el catálogo cambió mientras se generaba, no guardar una versión vieja
+        if (version.get() == versionActual) {
+            entradas.put(clave, nueva);
+        }
+        return nueva;
+    }
+
+    /**
+     * Marca el catálogo como modificado: todas las respuestas cacheadas dejan de ser válidas.
+     */
+    public void invalidar() {
+        version.incrementAndGet();
+        entradas.clear();
+    }
+
+    private static String etag(String clave, byte[] cuerpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(cuerpo);
+            // 128 bits del hash bastan para distinguir versiones del catálogo
+            return "\"" + clave + "-" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+}
@@ -0,0 +1,90 @@
+package com.universidad.auditorio.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker simple: tras {@code umbralFallos} fallos consecutivos se abre y
+ * rechaza llamadas durante {@code esperaAbiertoMs}; luego deja pasar una sola
+ * llamada de prueba (semiabierto) que lo cierra si sale bien o lo reabre si falla.
+ * {@code alCambiar} se ejecuta una vez cuando el circuito se abre y otra cuando vuelve a cerrarse.
+ */
+final class CircuitBreaker {
+
+    enum Estado {
+        CERRADO,
+        SEMIABIERTO,
+        ABIERTO
+    }
+
+    private final int umbralFallos;
+    private final long esperaAbiertoMs;
+    private final Runnable alCambiar;
+
+    private final AtomicInteger fallosConsecutivos = new AtomicInteger();
+    private final AtomicLong abiertoHasta = new AtomicLong(0);
+    private final AtomicBoolean pruebaEnCurso = new AtomicBoolean(false);
+    private volatile Estado estado = Estado.CERRADO;
+
+    CircuitBreaker(int umbralFallos, long esperaAbiertoMs, Runnable alCambiar) {
+        this.umbralFallos = umbralFallos;
+        this.esperaAbiertoMs = esperaAbiertoMs;
+        this.alCambiar = alCambiar;
+    }
+
+    /**
+     * Indica si la llamada puede intentarse. En semiabierto solo la primera obtiene permiso;
+     * quien lo obtiene debe informar el resultado con {@link #exito()} o {@link #fallo()}.
+     */
+    boolean permitir() {
+        if (estado == Estado.CERRADO) {
+            return true;
+        }
+        if (System.currentTimeMillis() < abiertoHasta.get()) {
+            return false;
+        }
+        if (pruebaEnCurso.compareAndSet(false, true)) {
+            estado = Estado.SEMIABIERTO;
+            return true;
+        }
+        return false;
+    }
+
+    void exito() {
+        fallosConsecutivos.set(0);
+        Estado anterior = estado;
+        estado = Estado.CERRADO;
+        pruebaEnCurso.set(false);
+        if (anterior != Estado.CERRADO) {
+            alCambiar.run();
+        }
+    }
+
+    void fallo() {
+        Estado anterior = estado;
+        if (anterior == Estado.SEMIABIERTO || fallosConsecutivos.incrementAndGet() >= umbralFallos) {
+            abiertoHasta.set(System.currentTimeMillis() + esperaAbiertoMs);
+            estado = Estado.ABIERTO;
+            pruebaEnCurso.set(false);
+            // Reabrir tras una prueba fallida no es un cambio para quien escucha
+            if (anterior == Estado.CERRADO) {
+                alCambiar.run();
+            }
+        }
+    }
+
+    /**
+     * La llamada con permiso no llegó a ejecutarse (ej: bulkhead lleno): no cuenta como
+     * fallo ni como éxito, pero libera la prueba de semiabierto para otro intento.
+     */
+    void cancelar() {
+        if (estado == Estado.SEMIABIERTO) {
+            pruebaEnCurso.set(false);
+        }
+    }
+
+    Estado getEstado() {
+        return estado;
+    }
+}
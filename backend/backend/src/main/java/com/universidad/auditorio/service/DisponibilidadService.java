@@ -0,0 +1,361 @@
+package com.universidad.auditorio.service;
+
+import com.universidad.auditorio.dto.AuditorioBusquedaDTO;
+import com.universidad.auditorio.dto.DisponibilidadDTO;
+import com.universidad.auditorio.dto.GrillaOcupacionDTO;
+import com.universidad.auditorio.model.Auditorio;
+import com.universidad.auditorio.model.EstadoReserva;
+import com.universidad.auditorio.repository.ReservaRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Calcula la disponibilidad de los auditorios a partir de un mapa de ocupación
+ * compacto: cada día de cada auditorio es un BitSet de slots fijos (por defecto
+ * 5 minutos, 288 bits por día). Todo el rango se arma con una sola consulta.
+ */
+@Service
+@RequiredArgsConstructor
+public class DisponibilidadService {
+
+    public static final int SLOT_MINUTOS = 5;
+    public static final int SLOTS_POR_DIA = 24 * 60 / SLOT_MINUTOS;
+
+    /** Rango máximo de consulta para no construir mapas arbitrariamente grandes */
+    public static final int MAX_DIAS_RANGO = 92;
+
+    private final ReservaRepository reservaRepository;
+    private final AuditorioCatalogo auditorioCatalogo;
+    private final AuditorioService auditorioService;
+
+    @Value("${reservas.horario.apertura:07:00}")
+    private String aperturaConfig;
+
+    @Value("${reservas.horario.cierre:22:00}")
+    private String cierreConfig;
+
+    private LocalTime apertura;
+    private LocalTime cierre;
+
+    @PostConstruct
+    public void iniciar() {
+        apertura = LocalTime.parse(aperturaConfig);
+        cierre = LocalTime.parse(cierreConfig);
+    }
+
+    /**
+     * Ventanas libres de un auditorio, día por día, dentro del horario de atención.
+     *
+     * @return vacío si el auditorio no existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<DisponibilidadDTO> getDisponibilidad(Long auditorioId, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        if (!auditorioCatalogo.existe(auditorioId)) {
+            return Optional.empty();
+        }
+        Ocupacion ocupacion = Ocupacion.desde(reservaRepository.findIntervalosEnRangoByAuditorio(auditorioId, desde, hasta));
+
+        List<DisponibilidadDTO.DiaDTO> dias = new ArrayList<>();
+        for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            dias.add(new DisponibilidadDTO.DiaDTO(fecha, ventanasLibres(ocupacion.get(auditorioId, fecha))));
+        }
+        return Optional.of(new DisponibilidadDTO(auditorioId, desde, hasta, SLOT_MINUTOS, dias));
+    }
+
+    /**
+     * Ocupación de todos los auditorios en el rango (una sola consulta).
+     */
+    @Transactional(readOnly = true)
+    public Ocupacion getOcupacion(LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        return Ocupacion.desde(reservaRepository.findIntervalosEnRango(desde, hasta));
+    }
+
+    /**
+     * Grilla de ocupación de todos los auditorios activos para un rango de fechas:
+     * minutos ocupados, conteo por estado e intervalos ocupados por auditorio y día.
+     * Los conteos se agrupan en BD (GROUP BY); los intervalos no cancelados llegan
+     * ordenados por celda y se fusionan en una pasada. La respuesta es columnar
+     * para serializarse barata.
+     */
+    @Transactional(readOnly = true)
+    public GrillaOcupacionDTO getGrilla(LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+
+        List<Long> auditorioIds = new ArrayList<>();
+        Map<Long, Integer> posAuditorio = new HashMap<>();
+        for (Auditorio auditorio : auditorioCatalogo.getTodos()) {
+            if (!Boolean.TRUE.equals(auditorio.getActivo())) {
+                continue;
+            }
+            posAuditorio.put(auditorio.getId(), auditorioIds.size());
+            auditorioIds.add(auditorio.getId());
+        }
+        List<LocalDate> fechas = new ArrayList<>();
+        for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            fechas.add(fecha);
+        }
+
+        int dias = fechas.size();
+        int celdas = auditorioIds.size() * dias;
+        int[] minutos = new int[celdas];
+        Map<String, int[]> conteos = new LinkedHashMap<>();
+        for (EstadoReserva estado : EstadoReserva.values()) {
+            conteos.put(estado.name(), new int[celdas]);
+        }
+        List<List<Integer>> intervalosPorCelda = new ArrayList<>(celdas);
+        for (int i = 0; i < celdas; i++) {
+            intervalosPorCelda.add(null);
+        }
+
+        // Conteos por estado agregados en BD
+        for (Object[] fila : reservaRepository.countGrilla(desde, hasta)) {
+            Integer a = posAuditorio.get((Long) fila[0]);
+            EstadoReserva estado = (EstadoReserva) fila[2];
+            if (a == null || estado == null) {
+                continue; // Auditorio inactivo o reserva sin estado
+            }
+            int celda = a * dias + (int) ChronoUnit.DAYS.between(desde, (LocalDate) fila[1]);
+            conteos.get(estado.name())[celda] = ((Long) fila[3]).intValue();
+        }
+
+        // Los minutos ocupados son la unión de intervalos (los solapados no se suman dos veces),
+        // así que se fusionan aquí sobre las filas no canceladas ya ordenadas por la BD
+        for (Object[] fila : reservaRepository.findIntervalosGrilla(desde, hasta)) {
+            Integer a = posAuditorio.get((Long) fila[0]);
+            if (a == null) {
+                continue; // Auditorio inactivo
+            }
+            int celda = a * dias + (int) ChronoUnit.DAYS.between(desde, (LocalDate) fila[1]);
+
+            int inicio = toMinutes((LocalTime) fila[2]);
+            int fin = toMinutes((LocalTime) fila[3]);
+            if (fin <= inicio) {
+                continue;
+            }
+            List<Integer> intervalos = intervalosPorCelda.get(celda);
+            if (intervalos == null) {
+                intervalos = new ArrayList<>();
+                intervalosPorCelda.set(celda, intervalos);
+            }
+            // Las filas vienen ordenadas por inicio: fusionar con el último intervalo si se cruzan
+            int n = intervalos.size();
+            if (n > 0 && inicio <= intervalos.get(n - 1)) {
+                int finAnterior = intervalos.get(n - 1);
+                if (fin > finAnterior) {
+                    minutos[celda] += fin - finAnterior;
+                    intervalos.set(n - 1, fin);
+                }
+            } else {
+                intervalos.add(inicio);
+                intervalos.add(fin);
+                minutos[celda] += fin - inicio;
+            }
+        }
+
+        int[][] intervalos = new int[celdas][];
+        for (int i = 0; i < celdas; i++) {
+            List<Integer> lista = intervalosPorCelda.get(i);
+            intervalos[i] = lista == null ? new int[0] : lista.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new GrillaOcupacionDTO(desde, hasta, auditorioIds, fechas, minutos, conteos, intervalos);
+    }
+
+    /**
+     * Busca auditorios activos con capacidad suficiente para el horario pedido.
+     * Los que están libres tal cual van primero, ordenados por mejor ajuste de capacidad
+     * (la sala más chica que alcanza). Los demás proponen el horario alternativo más
+     * cercano del mismo día, con la misma duración, dentro de la flexibilidad indicada
+     * (o en cualquier momento del horario de atención si no se indica).
+     * Los auditorios salen del catálogo en memoria; solo se consulta la ocupación del día.
+     * Un horario fuera del horario de atención se rechaza con un mensaje que lo indica.
+     */
+    @Transactional(readOnly = true)
+    public List<AuditorioBusquedaDTO> buscarAuditorios(Integer capacidad, LocalDate fecha, LocalTime horaInicio,
+                                                       LocalTime horaFin, Integer flexibilidadMinutos) {
+        if (capacidad == null || fecha == null || horaInicio == null || horaFin == null) {
+            throw new RuntimeException("Capacidad, fecha y horario son requeridos");
+        }
+        if (!horaFin.isAfter(horaInicio)) {
+            throw new RuntimeException("La hora de fin debe ser posterior a la hora de inicio");
+        }
+        if (horaInicio.isBefore(getApertura()) || horaFin.isAfter(getCierre())) {
+            throw new RuntimeException("El horario pedido está fuera del horario de atención ("
+                    + getApertura() + " - " + getCierre() + ")");
+        }
+
+        List<Auditorio> candidatos = auditorioCatalogo.getActivosConCapacidad(capacidad);
+        if (candidatos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Ocupacion ocupacion = getOcupacion(fecha, fecha);
+
+        int inicio = slotDesde(horaInicio);
+        int duracion = slotHasta(horaFin) - inicio;
+        int maxDesplazamiento = flexibilidadMinutos != null
+                ? flexibilidadMinutos / SLOT_MINUTOS
+                : SLOTS_POR_DIA;
+
+        List<AuditorioBusquedaDTO> resultados = new ArrayList<>();
+        for (Auditorio auditorio : candidatos) {
+            BitSet ocupados = ocupacion.get(auditorio.getId(), fecha);
+            int alternativa = inicioMasCercano(ocupados, inicio, duracion, maxDesplazamiento);
+            if (alternativa < 0) {
+                continue;
+            }
+            int desplazamiento = (alternativa - inicio) * SLOT_MINUTOS;
+            LocalTime propuestaInicio = desplazamiento == 0 ? horaInicio : slotToTime(alternativa);
+            LocalTime propuestaFin = desplazamiento == 0 ? horaFin : slotToTime(alternativa + duracion);
+            resultados.add(new AuditorioBusquedaDTO(auditorioService.toDTO(auditorio), desplazamiento == 0,
+                    propuestaInicio, propuestaFin, desplazamiento));
+        }
+
+        // Exactos primero; luego por cercanía a la hora pedida; luego por mejor ajuste de capacidad
+        resultados.sort(Comparator
+                .comparing((AuditorioBusquedaDTO r) -> !r.getDisponible())
+                .thenComparingInt(r -> Math.abs(r.getDesplazamientoMinutos()))
+                .thenComparingInt(r -> r.getAuditorio().getCapacidad()));
+        return resultados;
+    }
+
+    /**
+     * Slot de inicio libre más cercano al solicitado (alternando antes/después),
+     * que respete el horario de atención, o -1 si no hay ninguno.
+     */
+    private int inicioMasCercano(BitSet ocupados, int inicio, int duracion, int maxDesplazamiento) {
+        int primero = slotDesde(getApertura());
+        int ultimo = slotHasta(getCierre());
+        for (int d = 0; d <= maxDesplazamiento; d++) {
+            if (d > 0 && inicio + d + duracion > ultimo && inicio - d < primero) {
+                break; // Ambos sentidos ya salieron del horario de atención
+            }
+            for (int candidato : new int[]{inicio + d, inicio - d}) {
+                if (candidato < primero || candidato + duracion > ultimo) {
+                    continue;
+                }
+                int siguiente = ocupados.nextSetBit(candidato);
+                if (siguiente < 0 || siguiente >= candidato + duracion) {
+                    return candidato;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recorre los slots libres dentro del horario de atención y los agrupa en ventanas continuas.
+     */
+    public List<DisponibilidadDTO.VentanaDTO> ventanasLibres(BitSet ocupados) {
+        List<DisponibilidadDTO.VentanaDTO> ventanas = new ArrayList<>();
+        int primero = slotDesde(getApertura());
+        int ultimo = slotHasta(getCierre());
+
+        int libre = ocupados.nextClearBit(primero);
+        while (libre < ultimo) {
+            int siguienteOcupado = ocupados.nextSetBit(libre);
+            int fin = siguienteOcupado < 0 ? ultimo : Math.min(siguienteOcupado, ultimo);
+            ventanas.add(new DisponibilidadDTO.VentanaDTO(slotToTime(libre), slotToTime(fin)));
+            libre = ocupados.nextClearBit(fin);
+        }
+        return ventanas;
+    }
+
+    public LocalTime getApertura() {
+        return apertura;
+    }
+
+    public LocalTime getCierre() {
+        return cierre;
+    }
+
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new RuntimeException("Rango de fechas inválido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS_RANGO) {
+            throw new RuntimeException("El rango de fechas no puede superar " + MAX_DIAS_RANGO + " días");
+        }
+    }
+
+    static int toMinutes(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    /** Primer slot que empieza en o después de la hora dada */
+    static int slotDesde(LocalTime hora) {
+        return toMinutes(hora) / SLOT_MINUTOS;
+    }
+
+    /** Primer slot posterior a la hora dada (redondeo hacia arriba) */
+    static int slotHasta(LocalTime hora) {
+        int minutos = toMinutes(hora);
+        // 00:00 como fin se interpreta como fin del día
+        if (minutos == 0) {
+            return SLOTS_POR_DIA;
+        }
+        return (minutos + SLOT_MINUTOS - 1) / SLOT_MINUTOS;
+    }
+
+    static LocalTime slotToTime(int slot) {
+        return slot >= SLOTS_POR_DIA ? LocalTime.MAX.withNano(0) : LocalTime.of(0, 0).plusMinutes((long) slot * SLOT_MINUTOS);
+    }
+
+    /**
+     * Mapa de ocupación auditorio → fecha → BitSet de slots ocupados.
+     */
+    public static final class Ocupacion {
+
+        private static final BitSet VACIO = new BitSet(SLOTS_POR_DIA);
+
+        private final Map<Long, Map<LocalDate, BitSet>> porAuditorio = new HashMap<>();
+
+        /**
+         * Construye el mapa a partir de filas [auditorioId, fecha, horaInicio, horaFin].
+         */
+        static Ocupacion desde(List<Object[]> filas) {
+            Ocupacion ocupacion = new Ocupacion();
+            for (Object[] fila : filas) {
+                ocupacion.marcar((Long) fila[0], (LocalDate) fila[1], (LocalTime) fila[2], (LocalTime) fila[3]);
+            }
+            return ocupacion;
+        }
+
+        void marcar(Long auditorioId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin) {
+            int desde = slotDesde(horaInicio);
+            int hasta = slotHasta(horaFin);
+            if (hasta <= desde) {
+                return;
+            }
+            porAuditorio.computeIfAbsent(auditorioId, k -> new HashMap<>())
+                    .computeIfAbsent(fecha, k -> new BitSet(SLOTS_POR_DIA))
+                    .set(desde, hasta);
+        }
+
+        /**
+         * Slots ocupados de un auditorio en una fecha (nunca null; no modificar).
+         */
+        public BitSet get(Long auditorioId, LocalDate fecha) {
+            Map<LocalDate, BitSet> dias = porAuditorio.get(auditorioId);
+            if (dias == null) {
+                return VACIO;
+            }
+            return dias.getOrDefault(fecha, VACIO);
+        }
+    }
+}
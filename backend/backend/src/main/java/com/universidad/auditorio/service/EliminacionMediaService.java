@@ -0,0 +1,95 @@
+package com.universidad.auditorio.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Borrado de archivos en segundo plano. Las llaves se encolan al confirmar la
+ * transacción que eliminó sus registros, y un hilo las toma en lotes de hasta
+ * 1000 para borrarlas con una sola llamada de borrado múltiple a S3. Si la cola
+ * está llena o el borrado falla, los archivos quedan huérfanos y los limpia la
+ * reconciliación.
+ */
+@Service
+public class EliminacionMediaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EliminacionMediaService.class);
+
+    private static final int CAPACIDAD_COLA = 10_000;
+    private static final int TAMANO_LOTE = 1000;
+
+    private final AlmacenamientoGateway almacenamientoGateway;
+
+    private final LinkedBlockingQueue<String> pendientes = new LinkedBlockingQueue<>(CAPACIDAD_COLA);
+    private final Thread worker;
+
+    public EliminacionMediaService(AlmacenamientoGateway almacenamientoGateway) {
+        this.almacenamientoGateway = almacenamientoGateway;
+        this.worker = new Thread(this::procesar, "eliminacion-media");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Encola las llaves para borrarlas después del commit (o de inmediato si no hay transacción).
+     */
+    public void encolar(Collection<String> keys) {
+        List<String> validas = keys.stream().filter(k -> k != null && !k.isEmpty()).toList();
+        if (validas.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(validas);
+                }
+            });
+        } else {
+            agregar(validas);
+        }
+    }
+
+    private void agregar(List<String> keys) {
+        int descartadas = 0;
+        for (String key : keys) {
+            if (!pendientes.offer(key)) {
+                descartadas++;
+            }
+        }
+        if (descartadas > 0) {
+            logger.warn("Cola de borrado llena: {} archivos quedan para la reconciliación", descartadas);
+        }
+    }
+
+    private void procesar() {
+        List<String> lote = new ArrayList<>(TAMANO_LOTE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                lote.add(pendientes.take());
+                pendientes.drainTo(lote, TAMANO_LOTE - 1);
+                almacenamientoGateway.eliminarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.warn("Error borrando {} archivos: {}", lote.size(), e.getMessage());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        worker.interrupt();
+    }
+}
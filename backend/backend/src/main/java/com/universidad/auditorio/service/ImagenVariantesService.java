@@ -0,0 +1,359 @@
+package com.universidad.auditorio.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Genera versiones reducidas (miniatura, tarjeta y completa) de las imágenes
+ * subidas, en JPEG y solo con Java estándar (ImageIO + Java2D). El trabajo corre
+ * en un pool acotado en segundo plano; si está saturado la imagen se queda sin
+ * variantes y el frontend usa la original. Las imágenes en cola esperan en un
+ * temporal en disco, no en el heap.
+ * Cada variante se guarda junto a la original con una key derivada
+ * (ver {@link #keyVariante}), en el mismo almacenamiento (S3 o local).
+ */
+@Service
+@RequiredArgsConstructor
+public class ImagenVariantesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagenVariantesService.class);
+
+    /** Imágenes más grandes que esto no se decodifican (evita agotar el heap) */
+    private static final long MAX_PIXELES = 50_000_000L;
+    private static final float CALIDAD_JPEG = 0.85f;
+
+    public enum Variante {
+        THUMBNAIL("thumb", 160),
+        CARD("card", 480),
+        FULL("full", 1600);
+
+        private final String codigo;
+        private final int anchoMaximo;
+
+        Variante(String codigo, int anchoMaximo) {
+            this.codigo = codigo;
+            this.anchoMaximo = anchoMaximo;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+
+        public int getAnchoMaximo() {
+            return anchoMaximo;
+        }
+    }
+
+    private final AlmacenamientoGateway almacenamientoGateway;
+
+    /** Tamaño máximo de una imagen subida (el límite global del multipart es el de los videos) */
+    @Value("${almacenamiento.imagen.max-tamano:10MB}")
+    private String maxTamanoImagen;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(50), r -> {
+                Thread t = new Thread(r, "imagen-variantes");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Key de una variante: misma ruta que la original, sin extensión, con sufijo de la variante.
+     * Ej: auditorios/imagenes/uuid_foto.png → auditorios/imagenes/uuid_foto__thumb.jpg
+     */
+    public static String keyVariante(String key, Variante variante) {
+        return baseVariantes(key) + "__" + variante.getCodigo() + ".jpg";
+    }
+
+    /**
+     * Ruta sin extensión de la que cuelgan las variantes de una imagen.
+     */
+    public static String baseVariantes(String key) {
+        int barra = key.lastIndexOf('/');
+        int punto = key.lastIndexOf('.');
+        return punto > barra ? key.substring(0, punto) : key;
+    }
+
+    /**
+     * Si la key es de una variante devuelve la base de su original (ver baseVariantes), si no null.
+     */
+    public static String baseDeVariante(String key) {
+        for (Variante variante : Variante.values()) {
+            String sufijo = "__" + variante.getCodigo() + ".jpg";
+            if (key.endsWith(sufijo)) {
+                return key.substring(0, key.length() - sufijo.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convierte la columna imagen_variantes ("thumb,card,full") en la lista de variantes.
+     */
+    public static List<Variante> parsear(String codigos) {
+        List<Variante> variantes = new ArrayList<>();
+        if (codigos == null || codigos.isBlank()) {
+            return variantes;
+        }
+        for (String codigo : codigos.split(",")) {
+            for (Variante v : Variante.values()) {
+                if (v.getCodigo().equals(codigo.trim())) {
+                    variantes.add(v);
+                }
+            }
+        }
+        return variantes;
+    }
+
+    public static String codigos(List<Variante> variantes) {
+        return String.join(",", variantes.stream().map(Variante::getCodigo).toList());
+    }
+
+    /**
+     * Rechaza imágenes que superan almacenamiento.imagen.max-tamano.
+     */
+    public void validarTamano(MultipartFile imagen) {
+        if (imagen == null || imagen.isEmpty()) {
+            return;
+        }
+        DataSize maximo = DataSize.parse(maxTamanoImagen);
+        if (imagen.getSize() > maximo.toBytes()) {
+            throw new RuntimeException("La imagen no debe exceder " + maximo.toMegabytes() + "MB");
+        }
+    }
+
+    /**
+     * Encola la generación de variantes de una imagen ya subida. Al terminar se invoca
+     * el callback con las variantes que se pudieron guardar (desde el hilo del pool).
+     *
+     * @param key      key de la imagen original
+     * @param original imagen original; se copia a un temporal antes de que termine el request
+     */
+    public void generar(String key, MultipartFile original, Consumer<List<Variante>> alTerminar) {
+        ArchivoTemporal temporal;
+        try {
+            temporal = ArchivoTemporal.desde(original);
+        } catch (IOException e) {
+            logger.warn("No se pudo copiar {} para generar variantes: {}", key, e.getMessage());
+            return;
+        }
+        try {
+            executor.execute(new Tarea(key, temporal, alTerminar));
+        } catch (RejectedExecutionException e) {
+            temporal.eliminar();
+            logger.warn("Pool de variantes saturado, {} queda sin variantes", key);
+        }
+    }
+
+    /**
+     * Generación pendiente; conserva el temporal para poder borrarlo si se apaga el pool.
+     */
+    private final class Tarea implements Runnable {
+
+        private final String key;
+        private final ArchivoTemporal temporal;
+        private final Consumer<List<Variante>> alTerminar;
+
+        private Tarea(String key, ArchivoTemporal temporal, Consumer<List<Variante>> alTerminar) {
+            this.key = key;
+            this.temporal = temporal;
+            this.alTerminar = alTerminar;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Variante> generadas = generarYGuardar(key, temporal.getPath());
+                if (!generadas.isEmpty()) {
+                    alTerminar.accept(generadas);
+                }
+            } catch (Exception e) {
+                logger.warn("No se pudieron generar variantes de {}: {}", key, e.getMessage());
+            } finally {
+                temporal.eliminar();
+            }
+        }
+    }
+
+    /**
+     * Elimina las variantes de una imagen (de S3 o local, donde estén).
+     * Las de imágenes guardadas por contenido son compartidas: se borran junto con
+     * la original cuando se va su última referencia.
+     */
+    public void eliminarVariantes(String key, String codigos) {
+        for (String keyVariante : keysVariantes(key, codigos)) {
+            almacenamientoGateway.eliminar(keyVariante);
+        }
+    }
+
+    /**
+     * Llaves de las variantes que hay que borrar junto con la original (vacío para imágenes por contenido).
+     */
+    public static List<String> keysVariantes(String key, String codigos) {
+        List<String> keys = new ArrayList<>();
+        if (key == null || MediaBlobRegistry.esContenido(key)) {
+            return keys;
+        }
+        for (Variante variante : parsear(codigos)) {
+            keys.add(keyVariante(key, variante));
+        }
+        return keys;
+    }
+
+    private List<Variante> generarYGuardar(String key, Path original) throws IOException {
+        BufferedImage imagen = leer(original);
+        List<Variante> generadas = new ArrayList<>();
+        if (imagen == null) {
+            logger.info("Formato de imagen no soportado para variantes: {}", key);
+            return generadas;
+        }
+
+        long inicio = System.currentTimeMillis();
+        BufferedImage base = aRgb(imagen);
+        // De la más grande a la más chica: cada una se reduce desde la anterior
+        Variante[] variantes = Variante.values();
+        BufferedImage fuente = base;
+        for (int i = variantes.length - 1; i >= 0; i--) {
+            Variante variante = variantes[i];
+            fuente = reducir(fuente, variante.getAnchoMaximo());
+            byte[] jpeg = codificarJpeg(fuente);
+            guardar(keyVariante(key, variante), jpeg);
+            generadas.add(0, variante);
+        }
+        logger.info("Variantes de {} generadas en {} ms", key, System.currentTimeMillis() - inicio);
+        return generadas;
+    }
+
+    private BufferedImage leer(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Revisar dimensiones antes de decodificar
+                long pixeles = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixeles > MAX_PIXELES) {
+                    throw new IOException("Imagen demasiado grande (" + pixeles + " píxeles)");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Copia a RGB sobre fondo blanco (JPEG no admite transparencia).
+     */
+    private static BufferedImage aRgb(BufferedImage imagen) {
+        if (imagen.getType() == BufferedImage.TYPE_INT_RGB) {
+            return imagen;
+        }
+        BufferedImage rgb = new BufferedImage(imagen.getWidth(), imagen.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, imagen.getWidth(), imagen.getHeight());
+            g.drawImage(imagen, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * Reduce al ancho máximo manteniendo la proporción. Baja a la mitad en pasos
+     * sucesivos (interpolación bilineal) para no perder calidad en reducciones grandes.
+     * Nunca amplía.
+     */
+    private static BufferedImage reducir(BufferedImage imagen, int anchoMaximo) {
+        int ancho = imagen.getWidth();
+        int alto = imagen.getHeight();
+        if (ancho <= anchoMaximo) {
+            return imagen;
+        }
+        int anchoFinal = anchoMaximo;
+        int altoFinal = Math.max(1, (int) Math.round((double) alto * anchoFinal / ancho));
+
+        BufferedImage actual = imagen;
+        while (ancho > anchoFinal) {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = ancho == anchoFinal ? altoFinal : Math.max(1, alto / 2);
+            BufferedImage paso = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = paso.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, ancho, alto, null);
+            } finally {
+                g.dispose();
+            }
+            actual = paso;
+        }
+        return actual;
+    }
+
+    private static byte[] codificarJpeg(BufferedImage imagen) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(salida)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(CALIDAD_JPEG);
+            writer.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return salida.toByteArray();
+    }
+
+    private void guardar(String key, byte[] jpeg) throws IOException {
+        almacenamientoGateway.subirBytes(key, jpeg, "image/jpeg");
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        // Las tareas que no llegaron a correr dejan su temporal: borrarlo aquí
+        for (Runnable pendiente : executor.shutdownNow()) {
+            if (pendiente instanceof Tarea tarea) {
+                tarea.temporal.eliminar();
+            }
+        }
+    }
+}
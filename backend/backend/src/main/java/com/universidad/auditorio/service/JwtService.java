@@ -0,0 +1,129 @@
+package com.universidad.auditorio.service;
+
+import com.universidad.auditorio.model.RolUsuario;
+import com.universidad.auditorio.model.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emite y verifica los tokens de sesión (JWT firmados con HS256). El access token
+ * lleva el id del usuario y su rol, así que autorizar un request no consulta la BD;
+ * el refresh token solo sirve para pedir uno nuevo en /api/auth/refresh.
+ * La llave y el parser se arman una sola vez, y los tokens ya verificados se
+ * guardan en un mapa concurrente (sin lock global) para no repetir el parseo y la
+ * verificación de la firma en cada request. Las entradas vencidas se podan cada
+ * minuto y, si aun así se supera el máximo, el mapa se vacía.
+ */
+@Service
+public class JwtService {
+
+    public static final String TIPO_ACCESS = "access";
+    public static final String TIPO_REFRESH = "refresh";
+
+    private static final String CLAIM_ROL = "rol";
+    private static final String CLAIM_TIPO = "tipo";
+    private static final int MAX_TOKENS_CACHEADOS = 10_000;
+    private static final long PODA_MS = 60_000;
+
+    private final SecretKey llave;
+    private final JwtParser parser;
+    private final long expiracionMs;
+    private final long expiracionRefreshMs;
+
+    /** token → datos ya verificados */
+    private final ConcurrentHashMap<String, TokenVerificado> verificados = new ConcurrentHashMap<>();
+    private final AtomicLong ultimaPoda = new AtomicLong(System.currentTimeMillis());
+
+    public record TokenVerificado(Long usuarioId, RolUsuario rol, String tipo, long expiraEn) {
+    }
+
+    public JwtService(@Value("${jwt.secret}") String secret,
+                      @Value("${jwt.expiration}") long expiracionMs,
+                      @Value("${jwt.refresh-expiration:604800000}") long expiracionRefreshMs) {
+        this.llave = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(llave).build();
+        this.expiracionMs = expiracionMs;
+        this.expiracionRefreshMs = expiracionRefreshMs;
+    }
+
+    public String generarAccessToken(Usuario usuario) {
+        return generar(usuario, TIPO_ACCESS, expiracionMs);
+    }
+
+    public String generarRefreshToken(Usuario usuario) {
+        return generar(usuario, TIPO_REFRESH, expiracionRefreshMs);
+    }
+
+    /**
+     * Datos del token si la firma es válida, no expiró y es del tipo pedido.
+     */
+    public Optional<TokenVerificado> verificar(String token, String tipo) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        long ahora = System.currentTimeMillis();
+        TokenVerificado cacheado = verificados.get(token);
+        if (cacheado == null) {
+            try {
+                Claims claims = parser.parseClaimsJws(token).getBody();
+                String rol = claims.get(CLAIM_ROL, String.class);
+                String tipoToken = claims.get(CLAIM_TIPO, String.class);
+                // Firmado por nosotros pero sin alguno de los claims esperados: no es válido
+                if (claims.getSubject() == null || rol == null || tipoToken == null
+                        || claims.getExpiration() == null) {
+                    return Optional.empty();
+                }
+                cacheado = new TokenVerificado(Long.valueOf(claims.getSubject()), RolUsuario.valueOf(rol),
+                        tipoToken, claims.getExpiration().getTime());
+            } catch (JwtException | IllegalArgumentException e) {
+                return Optional.empty();
+            }
+            podar(ahora);
+            verificados.put(token, cacheado);
+        } else if (cacheado.expiraEn() <= ahora) {
+            verificados.remove(token);
+            return Optional.empty();
+        }
+        return tipo.equals(cacheado.tipo()) ? Optional.of(cacheado) : Optional.empty();
+    }
+
+    /**
+     * Quita los tokens vencidos una vez por minuto (un solo hilo a la vez) o cuando el
+     * mapa llega al máximo; si siguen siendo demasiados se vacía y se vuelven a verificar.
+     */
+    private void podar(long ahora) {
+        long ultima = ultimaPoda.get();
+        boolean lleno = verificados.size() >= MAX_TOKENS_CACHEADOS;
+        if ((ahora - ultima < PODA_MS && !lleno) || !ultimaPoda.compareAndSet(ultima, ahora)) {
+            return;
+        }
+        verificados.values().removeIf(t -> t.expiraEn() <= ahora);
+        if (verificados.size() >= MAX_TOKENS_CACHEADOS) {
+            verificados.clear();
+        }
+    }
+
+    private String generar(Usuario usuario, String tipo, long duracionMs) {
+        long ahora = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(String.valueOf(usuario.getId()))
+                .claim(CLAIM_ROL, usuario.getRol().name())
+                .claim(CLAIM_TIPO, tipo)
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + duracionMs))
+                .signWith(llave)
+                .compact();
+    }
+}
@@ -1,38 +1,77 @@
 package com.universidad.auditorio.service;
 
+import com.universidad.auditorio.dto.ObjetoAlmacenadoDTO;
+import com.universidad.auditorio.dto.PaginaDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
- * Servicio alternativo para almacenamiento local de archivos
- * Úsalo cuando no tengas S3 configurado (desarrollo local)
+ * Almacenamiento local de archivos como object store de un solo nodo.
+ * Cada objeto se guarda en uploads/objetos/{ab}/{cd}/{sha256 de la llave}: los dos
+ * niveles de subdirectorios reparten cientos de miles de objetos sin directorios
+ * gigantes. Junto a los datos va un archivo .meta con la llave, content type,
+ * tamaño y SHA-256 del contenido. Las escrituras van a un temporal (con fsync) y se
+ * publican con rename atómico: primero los datos y al final el .meta, así un objeto
+ * listado siempre está completo. Las llaves (y por lo tanto las URLs) no cambian.
+ * Los archivos del formato anterior (uploads/{llave}) se siguen leyendo y se migran
+ * al arrancar.
  */
 @Service
 public class LocalStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(LocalStorageService.class);
+
     @Value("${server.port:8080}")
     private String serverPort;
 
     private static final String UPLOAD_DIR = "uploads";
+    private static final String DIR_OBJETOS = "objetos";
+    private static final String DIR_TEMPORALES = ".tmp";
+    public static final String EXTENSION_META = ".meta";
 
-    public String uploadFile(MultipartFile file, String folder) throws IOException {
-        // Crear directorio si no existe
-        String uploadPath = UPLOAD_DIR + File.separator + folder;
-        Path uploadDir = Paths.get(uploadPath);
-        
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
-        }
+    /** Carpetas del formato anterior que se pueden resolver (las que atiende MediaRequestHandler) */
+    private static final Set<String> CARPETAS_LEGADO = Set.of("auditorios", "usuarios", "media");
 
+    private record Temporal(Path path, MediaBlobRegistry.Contenido contenido) {
+    }
+
+    public String uploadFile(MultipartFile file, String folder) throws IOException {
         // Generar nombre único para el archivo
         String originalFilename = file.getOriginalFilename();
         String fileName;
@@ -44,13 +83,104 @@ public class LocalStorageService {
             // Si no hay nombre, usar un nombre genérico
             fileName = UUID.randomUUID().toString() + "_file";
         }
+        String key = folder + "/" + fileName;
 
-        // Guardar archivo
-        Path filePath = uploadDir.resolve(fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream in = file.getInputStream()) {
+            publicar(key, escribirTemporal(in), file.getContentType());
+        }
 
         // Retornar solo la llave/ruta relativa, no la URL completa
-        return folder + "/" + fileName;
+        return key;
+    }
+
+    /**
+     * Guarda un archivo por contenido con su llave ya calculada. Las referencias las lleva
+     * AlmacenamientoGateway en MediaBlobRegistry; aquí solo se escribe el objeto.
+     */
+    void subirContenido(MultipartFile file, String key) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            publicar(key, escribirTemporal(in), file.getContentType());
+        }
+    }
+
+    /**
+     * Guarda contenido ya generado en memoria con una llave fija (por ejemplo variantes de imagen)
+     * @param key La llave del archivo (ej: "auditorios/imagenes/uuid-123_imagen__thumb.jpg")
+     */
+    public void uploadBytes(String key, byte[] contenido, String contentType) throws IOException {
+        publicar(key, escribirTemporal(new ByteArrayInputStream(contenido)), contentType);
+    }
+
+    /**
+     * Ruta en disco de los datos de una llave, o null si no existe.
+     * @param key La llave del archivo (ej: "auditorios/videos/uuid-123_video.mp4")
+     */
+    public Path resolver(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Path datos = rutaDatos(key);
+        if (Files.isRegularFile(datos)) {
+            return datos;
+        }
+        Path legado = rutaLegado(key);
+        return legado != null && Files.isRegularFile(legado) ? legado : null;
+    }
+
+    public boolean existe(String key) {
+        return resolver(key) != null;
+    }
+
+    /**
+     * Metadatos del objeto (vacío si no existe o es un archivo del formato anterior sin migrar).
+     */
+    public Optional<ObjetoAlmacenadoDTO> getMetadatos(String key) {
+        if (key == null || key.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(leerMeta(rutaMeta(rutaDatos(key))));
+    }
+
+    /**
+     * Lista los objetos en el orden de los directorios (no alfabético por llave),
+     * filtrando por prefijo de llave. El cursor es la posición del último objeto
+     * devuelto ("ab/cd/hash"); solo se leen los .meta a partir de él.
+     */
+    public PaginaDTO<ObjetoAlmacenadoDTO> listar(String prefijo, String cursor, int limite) throws IOException {
+        List<ObjetoAlmacenadoDTO> items = new ArrayList<>();
+        Path raiz = raiz().resolve(DIR_OBJETOS);
+        if (!Files.isDirectory(raiz)) {
+            return new PaginaDTO<>(items, null, null);
+        }
+        for (String nivel1 : nombresOrdenados(raiz, true)) {
+            if (cursor != null && nivel1.compareTo(cursor.substring(0, Math.min(2, cursor.length()))) < 0) {
+                continue;
+            }
+            for (String nivel2 : nombresOrdenados(raiz.resolve(nivel1), true)) {
+                String directorio = nivel1 + "/" + nivel2;
+                if (cursor != null && directorio.compareTo(cursor.substring(0, Math.min(5, cursor.length()))) < 0) {
+                    continue;
+                }
+                for (String nombre : nombresOrdenados(raiz.resolve(nivel1).resolve(nivel2), false)) {
+                    if (!nombre.endsWith(EXTENSION_META)) {
+                        continue;
+                    }
+                    String posicion = directorio + "/" + nombre.substring(0, nombre.length() - EXTENSION_META.length());
+                    if (cursor != null && posicion.compareTo(cursor) <= 0) {
+                        continue;
+                    }
+                    ObjetoAlmacenadoDTO objeto = leerMeta(raiz.resolve(nivel1).resolve(nivel2).resolve(nombre));
+                    if (objeto == null || (prefijo != null && !objeto.getKey().startsWith(prefijo))) {
+                        continue;
+                    }
+                    items.add(objeto);
+                    if (items.size() >= limite) {
+                        return new PaginaDTO<>(items, posicion, null);
+                    }
+                }
+            }
+        }
+        return new PaginaDTO<>(items, null, null);
     }
 
     /**
@@ -75,15 +205,237 @@ public class LocalStorageService {
                 }
             }
             
-            String filePath = UPLOAD_DIR + File.separator + fileKey;
-            Path path = Paths.get(filePath);
-            if (Files.exists(path)) {
-                Files.delete(path);
-            }
-        } catch (IOException e) {
+            borrarObjeto(fileKey);
+        } catch (IOException | RuntimeException e) {
             // Log error pero no lanzar excepción
             System.err.println("Error al eliminar archivo: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * Borra un archivo por contenido junto con sus variantes de imagen (que también son compartidas).
+     */
+    void eliminarContenido(String key) {
+        try {
+            borrarObjeto(key);
+            for (ImagenVariantesService.Variante variante : ImagenVariantesService.Variante.values()) {
+                borrarObjeto(ImagenVariantesService.keyVariante(key, variante));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void borrarObjeto(String key) throws IOException {
+        Path datos = rutaDatos(key);
+        // Primero el .meta: el objeto deja de listarse antes de perder los datos
+        Files.deleteIfExists(rutaMeta(datos));
+        Files.deleteIfExists(datos);
+        Path legado = rutaLegado(key);
+        if (legado != null) {
+            Files.deleteIfExists(legado);
+        }
+    }
+
+    /**
+     * Mueve los archivos del formato anterior (uploads/{llave}) al object store, en segundo plano.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrarLegado() {
+        Thread hilo = new Thread(() -> {
+            Path raiz = raiz();
+            if (!Files.isDirectory(raiz)) {
+                return;
+            }
+            int migrados = 0;
+            int fallidos = 0;
+            try (Stream<Path> archivos = Files.walk(raiz)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Path relativo = raiz.relativize(archivo);
+                    String primero = relativo.getNameCount() > 0 ? relativo.getName(0).toString() : "";
+                    if (!Files.isRegularFile(archivo) || primero.equals(DIR_OBJETOS) || primero.equals(DIR_TEMPORALES)) {
+                        continue;
+                    }
+                    // Un archivo que no se puede migrar se deja como está (se sigue leyendo) y se sigue con el resto
+                    try {
+                        if (migrar(relativo.toString().replace('\\', '/'), archivo)) {
+                            migrados++;
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        fallidos++;
+                        logger.warn("No se pudo migrar {}: {}", relativo, e.getMessage());
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                logger.warn("Migración de archivos locales interrumpida: {}", e.getMessage());
+            }
+            if (migrados > 0 || fallidos > 0) {
+                logger.info("Migrados {} archivos locales al object store ({} con error)", migrados, fallidos);
+            }
+        }, "almacenamiento-migracion");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Copia un archivo del formato anterior al object store y borra el original. Si el
+     * original ya no está al terminar la copia, se borró mientras tanto: se descarta la
+     * copia para no revivir un objeto eliminado.
+     */
+    private boolean migrar(String key, Path archivo) throws IOException {
+        if (Files.isRegularFile(rutaDatos(key))) {
+            // Migrado en un arranque anterior que no llegó a borrar el original
+            Files.deleteIfExists(archivo);
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(archivo)) {
+            publicar(key, escribirTemporal(in), null);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (!Files.deleteIfExists(archivo)) {
+            borrarObjeto(key);
+            return false;
+        }
+        return true;
+    }
+
+    private Temporal escribirTemporal(InputStream in) throws IOException {
+        Path temporales = raiz().resolve(DIR_TEMPORALES);
+        Files.createDirectories(temporales);
+        Path temporal = Files.createTempFile(temporales, "obj-", ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(canal);
+            MediaBlobRegistry.Contenido contenido = MediaBlobRegistry.copiarConHash(in, out);
+            canal.force(true);
+            return new Temporal(temporal, contenido);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+    }
+
+    /**
+     * Publica el temporal bajo la llave: rename atómico de los datos y luego del .meta.
+     * Ambos temporales se escriben con fsync y después de los renames se sincroniza el
+     * directorio, así un corte de luz no deja un .meta apuntando a datos perdidos.
+     */
+    private void publicar(String key, Temporal temporal, String contentType) throws IOException {
+        Path datos = rutaDatos(key);
+        Files.createDirectories(datos.getParent());
+
+        Properties meta = new Properties();
+        meta.setProperty("key", key);
+        meta.setProperty("contentType", contentType != null ? contentType
+                : MediaTypeFactory.getMediaType(key).map(Object::toString).orElse("application/octet-stream"));
+        meta.setProperty("tamano", String.valueOf(temporal.contenido().tamano()));
+        meta.setProperty("sha256", temporal.contenido().hash());
+        meta.setProperty("creadoEn", String.valueOf(System.currentTimeMillis()));
+        Path metaTemporal = Files.createTempFile(raiz().resolve(DIR_TEMPORALES), "meta-", ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(metaTemporal, StandardOpenOption.WRITE)) {
+                Writer writer = Channels.newWriter(canal, StandardCharsets.UTF_8);
+                meta.store(writer, null);
+                writer.flush();
+                canal.force(true);
+            }
+            Files.move(temporal.path(), datos, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(metaTemporal, rutaMeta(datos), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            sincronizarDirectorio(datos.getParent());
+        } finally {
+            Files.deleteIfExists(metaTemporal);
+            Files.deleteIfExists(temporal.path());
+        }
+    }
+
+    /**
+     * fsync del directorio para que los renames queden en disco. Algunos sistemas
+     * (Windows) no permiten abrir un directorio: ahí se omite.
+     */
+    private static void sincronizarDirectorio(Path directorio) {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            logger.debug("No se pudo sincronizar {}: {}", directorio, e.getMessage());
+        }
+    }
+
+    /**
+     * Lee un .meta; null si no existe o está incompleto (ej: vacío tras un corte).
+     */
+    private ObjetoAlmacenadoDTO leerMeta(Path meta) {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Metadatos ilegibles en {}: {}", meta, e.getMessage());
+            return null;
+        }
+        String key = props.getProperty("key");
+        if (key == null || key.isEmpty()) {
+            logger.warn("Metadatos sin llave en {}", meta);
+            return null;
+        }
+        try {
+            return new ObjetoAlmacenadoDTO(key, props.getProperty("contentType"),
+                    Long.valueOf(props.getProperty("tamano", "0")), props.getProperty("sha256"),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(props.getProperty("creadoEn", "0"))),
+                            ZoneId.systemDefault()));
+        } catch (NumberFormatException e) {
+            logger.warn("Metadatos inválidos en {}: {}", meta, e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<String> nombresOrdenados(Path directorio, boolean soloDirectorios) throws IOException {
+        try (Stream<Path> hijos = Files.list(directorio)) {
+            return hijos.filter(p -> soloDirectorios == Files.isDirectory(p))
+                    .map(p -> p.getFileName().toString())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path raiz() {
+        return Paths.get(UPLOAD_DIR).toAbsolutePath().normalize();
+    }
+
+    /**
+     * uploads/objetos/{ab}/{cd}/{sha256 de la llave}
+     */
+    private static Path rutaDatos(String key) {
+        String hash = sha256(key);
+        return raiz().resolve(DIR_OBJETOS).resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static Path rutaMeta(Path datos) {
+        return datos.resolveSibling(datos.getFileName() + EXTENSION_META);
+    }
+
+    /**
+     * Ruta del formato anterior, o null si la llave no queda dentro de auditorios/, usuarios/
+     * o media/ (ej: "../", "objetos/...") o es un .meta
+     */
+    private static Path rutaLegado(String key) {
+        if (key.endsWith(EXTENSION_META)) {
+            return null;
+        }
+        Path raiz = raiz();
+        Path path = raiz.resolve(key).normalize();
+        if (!path.startsWith(raiz) || path.getNameCount() < raiz.getNameCount() + 2) {
+            return null;
+        }
+        return CARPETAS_LEGADO.contains(path.getName(raiz.getNameCount()).toString()) ? path : null;
+    }
+
+    private static String sha256(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
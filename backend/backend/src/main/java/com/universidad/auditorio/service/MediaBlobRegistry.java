@@ -0,0 +1,175 @@
+package com.universidad.auditorio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Registro de objetos guardados por contenido: la llave de un archivo se deriva del
+ * SHA-256 de sus bytes ("media/ab/abcd...ef.jpg"), así el mismo logo subido para diez
+ * auditorios o usuarios es un solo objeto con diez referencias. Hay una sola fila por
+ * llave, sin importar si el objeto está en S3 o en el almacenamiento local: la fila
+ * anota dónde está guardado y el borrado se hace allí al irse la última referencia,
+ * así que una subida que terminó en local no descuenta referencias de S3 ni al revés.
+ * Las referencias viven en la tabla media_blobs y se modifican con la fila bloqueada
+ * (SELECT ... FOR UPDATE) para que un alta y una baja simultáneas no se pisen.
+ */
+@Component
+public class MediaBlobRegistry {
+
+    public static final String PREFIJO = "media/";
+    public static final String ALMACENAMIENTO_S3 = "S3";
+    public static final String ALMACENAMIENTO_LOCAL = "LOCAL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${almacenamiento.deduplicar:true}")
+    private boolean habilitado;
+
+    public MediaBlobRegistry(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Resultado de leer un archivo calculando su hash.
+     */
+    public record Contenido(String hash, long tamano) {
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public static boolean esContenido(String key) {
+        return key != null && key.startsWith(PREFIJO);
+    }
+
+    /**
+     * Llave por contenido: media/{2 primeros caracteres del hash}/{hash}.{extensión original}
+     */
+    public static String clave(String hash, String originalFilename) {
+        String extension = "";
+        if (originalFilename != null) {
+            int punto = originalFilename.lastIndexOf('.');
+            if (punto >= 0 && punto < originalFilename.length() - 1) {
+                String ext = originalFilename.substring(punto + 1).toLowerCase(Locale.ROOT);
+                if (ext.matches("[a-z0-9]{1,10}")) {
+                    extension = "." + ext;
+                }
+            }
+        }
+        return PREFIJO + hash.substring(0, 2) + "/" + hash + extension;
+    }
+
+    /**
+     * Copia el stream a la salida mientras calcula el SHA-256 (una sola pasada).
+     */
+    public static Contenido copiarConHash(InputStream in, OutputStream out) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long tamano;
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+            tamano = digestIn.transferTo(out);
+        }
+        return new Contenido(HexFormat.of().formatHex(digest.digest()), tamano);
+    }
+
+    /**
+     * Si el objeto ya está registrado (en cualquier almacenamiento) le suma una referencia
+     * y devuelve el almacenamiento donde vive; null si no está registrado y hay que subirlo.
+     */
+    public String agregarReferencia(String clave) {
+        return transactionTemplate.execute(status -> {
+            List<String> almacenamiento = jdbcTemplate.queryForList(
+                    "SELECT almacenamiento FROM media_blobs WHERE clave = ? FOR UPDATE", String.class, clave);
+            if (almacenamiento.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.update("UPDATE media_blobs SET referencias = referencias + 1 WHERE clave = ?", clave);
+            return almacenamiento.get(0);
+        });
+    }
+
+    /**
+     * Registra un objeto recién subido al almacenamiento indicado. Si otro request lo
+     * registró mientras tanto, solo suma la referencia (y la copia recién subida, si quedó
+     * en otro almacenamiento, la limpia la reconciliación). Devuelve true si el registro es nuevo.
+     */
+    public boolean registrar(String clave, String almacenamiento, Contenido contenido) {
+        int filas = jdbcTemplate.update(
+                "INSERT INTO media_blobs (clave, almacenamiento, hash, tamano, referencias) VALUES (?, ?, ?, ?, 1) " +
+                        "ON DUPLICATE KEY UPDATE referencias = referencias + 1",
+                clave, almacenamiento, contenido.hash(), contenido.tamano());
+        // MySQL: 1 = insertado, 2 = actualizado
+        return filas == 1;
+    }
+
+    /**
+     * Quita una referencia. Si era la última, borra el registro y ejecuta la eliminación
+     * del objeto, con la fila aún bloqueada, recibiendo el almacenamiento donde está guardado.
+     * Devuelve false si la llave no está registrada.
+     */
+    public boolean liberar(String clave, Consumer<String> eliminarDe) {
+        Boolean registrada = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> filas = jdbcTemplate.queryForList(
+                    "SELECT referencias, almacenamiento FROM media_blobs WHERE clave = ? FOR UPDATE", clave);
+            if (filas.isEmpty()) {
+                return false;
+            }
+            Map<String, Object> fila = filas.get(0);
+            if (((Number) fila.get("referencias")).intValue() <= 1) {
+                jdbcTemplate.update("DELETE FROM media_blobs WHERE clave = ?", clave);
+                eliminarDe.accept((String) fila.get("almacenamiento"));
+            } else {
+                jdbcTemplate.update("UPDATE media_blobs SET referencias = referencias - 1 WHERE clave = ?", clave);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(registrada);
+    }
+
+    /**
+     * Borra un objeto por contenido que la reconciliación encontró sin registro. Vuelve a
+     * comprobarlo con la llave bloqueada (una subida concurrente espera a que termine) y solo
+     * lo borra si ningún registro lo tiene en ese almacenamiento. Nunca modifica referencias.
+     * Para una variante de imagen se busca el registro de su original.
+     * Devuelve true si lo borró.
+     */
+    public boolean eliminarHuerfano(String key, String almacenamiento, Runnable eliminarObjeto) {
+        String base = ImagenVariantesService.baseDeVariante(key);
+        Boolean eliminado = transactionTemplate.execute(status -> {
+            List<String> registrados = base == null
+                    ? jdbcTemplate.queryForList("SELECT almacenamiento FROM media_blobs WHERE clave = ? FOR UPDATE",
+                            String.class, key)
+                    : jdbcTemplate.queryForList("SELECT almacenamiento FROM media_blobs " +
+                                    "WHERE clave = ? OR clave LIKE ? ESCAPE '!' FOR UPDATE",
+                            String.class, base, base.replace("!", "!!").replace("%", "!%").replace("_", "!_") + ".%");
+            if (registrados.contains(almacenamiento)) {
+                return false;
+            }
+            eliminarObjeto.run();
+            return true;
+        });
+        return Boolean.TRUE.equals(eliminado);
+    }
+}
@@ -0,0 +1,304 @@
+package com.universidad.auditorio.service;
+
+import com.universidad.auditorio.dto.ObjetoAlmacenadoDTO;
+import com.universidad.auditorio.dto.PaginaDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limpieza incremental de archivos huérfanos (que ninguna fila referencia). Recorre
+ * el listado de cada almacenamiento de a una página por ciclo, busca en BD solo las
+ * llaves de esa página y borra las que no están referenciadas y son más viejas que
+ * el período de gracia (una subida recién hecha todavía no tiene su fila guardada).
+ * La posición se guarda en reconciliacion_media después de cada página, así una
+ * pasada se retoma tras un reinicio. Entre páginas espera, y cede el turno si hay
+ * llamadas a S3 en cola, para no competir con los requests.
+ */
+@Service
+public class ReconciliacionMediaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliacionMediaService.class);
+
+    private static final String LOCK_NAME = "auditorio_reconciliacion_media";
+    private static final String S3 = MediaBlobRegistry.ALMACENAMIENTO_S3;
+    private static final String LOCAL = MediaBlobRegistry.ALMACENAMIENTO_LOCAL;
+
+    /** Columnas que referencian archivos que no son por contenido */
+    private static final String[][] REFERENCIAS = {
+            {"auditorios", "imagen_key"},
+            {"auditorios", "video_key"},
+            {"usuarios", "imagen_key"}
+    };
+
+    private final AlmacenamientoGateway almacenamientoGateway;
+    private final LocalStorageService localStorageService;
+    private final MediaBlobRegistry mediaBlobRegistry;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "reconciliacion-media");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    @Value("${reconciliacion.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${reconciliacion.lote:200}")
+    private int lote;
+
+    @Value("${reconciliacion.pausa-ms:5000}")
+    private long pausaMs;
+
+    @Value("${reconciliacion.gracia-horas:24}")
+    private long graciaHoras;
+
+    @Value("${reconciliacion.intervalo-horas:24}")
+    private long intervaloHoras;
+
+    public ReconciliacionMediaService(AlmacenamientoGateway almacenamientoGateway,
+                                      LocalStorageService localStorageService, MediaBlobRegistry mediaBlobRegistry,
+                                      JdbcTemplate jdbcTemplate) {
+        this.almacenamientoGateway = almacenamientoGateway;
+        this.localStorageService = localStorageService;
+        this.mediaBlobRegistry = mediaBlobRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitada) {
+            logger.info("Reconciliación de archivos deshabilitada (reconciliacion.habilitada=false)");
+            return;
+        }
+        planificador.scheduleWithFixedDelay(this::ciclo, pausaMs, pausaMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void ciclo() {
+        try {
+            // Con varias instancias, solo una reconcilia a la vez (las demás saltan el ciclo)
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                    ps.setString(1, LOCK_NAME);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next() || rs.getInt(1) != 1) {
+                            return null;
+                        }
+                    }
+                }
+                try {
+                    procesarPagina(LOCAL);
+                    if (almacenamientoGateway.isS3Configurado() && !almacenamientoGateway.isS3Ocupado()) {
+                        procesarPagina(S3);
+                    }
+                } finally {
+                    try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                        ps.setString(1, LOCK_NAME);
+                        ps.executeQuery().close();
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Error en la reconciliación de archivos: {}", e.getMessage());
+        }
+    }
+
+    private void procesarPagina(String almacenamiento) {
+        jdbcTemplate.update("INSERT IGNORE INTO reconciliacion_media (almacenamiento) VALUES (?)", almacenamiento);
+        Map<String, Object> estado = jdbcTemplate.queryForMap(
+                "SELECT cursor_posicion, vuelta_terminada_en FROM reconciliacion_media WHERE almacenamiento = ?",
+                almacenamiento);
+        String cursor = (String) estado.get("cursor_posicion");
+        Timestamp terminada = (Timestamp) estado.get("vuelta_terminada_en");
+        if (cursor == null && terminada != null
+                && terminada.toLocalDateTime().plusHours(intervaloHoras).isAfter(LocalDateTime.now())) {
+            return;
+        }
+
+        PaginaDTO<ObjetoAlmacenadoDTO> pagina;
+        try {
+            pagina = S3.equals(almacenamiento)
+                    ? almacenamientoGateway.listarS3(cursor, lote)
+                    : localStorageService.listar(null, cursor, lote);
+        } catch (Exception e) {
+            logger.info("Reconciliación {} pospuesta: {}", almacenamiento, e.getMessage());
+            return;
+        }
+
+        LocalDateTime limite = LocalDateTime.now().minusHours(graciaHoras);
+        List<String> candidatas = new ArrayList<>();
+        for (ObjetoAlmacenadoDTO objeto : pagina.getItems()) {
+            if (objeto.getCreadoEn() != null && objeto.getCreadoEn().isBefore(limite)) {
+                candidatas.add(objeto.getKey());
+            }
+        }
+        List<String> huerfanas = huerfanas(candidatas, almacenamiento);
+        int eliminadas = eliminar(huerfanas, almacenamiento);
+
+        if (cursor == null) {
+            jdbcTemplate.update("UPDATE reconciliacion_media SET revisados = 0, eliminados = 0, " +
+                    "vuelta_iniciada_en = CURRENT_TIMESTAMP WHERE almacenamiento = ?", almacenamiento);
+        }
+        String siguiente = pagina.getSiguienteCursor();
+        jdbcTemplate.update("UPDATE reconciliacion_media SET cursor_posicion = ?, " +
+                        "revisados = revisados + ?, eliminados = eliminados + ?, " +
+                        "vuelta_terminada_en = CASE WHEN ? IS NULL THEN CURRENT_TIMESTAMP ELSE vuelta_terminada_en END " +
+                        "WHERE almacenamiento = ?",
+                siguiente, pagina.getItems().size(), eliminadas, siguiente, almacenamiento);
+        if (siguiente == null) {
+            logger.info("Reconciliación {} completa", almacenamiento);
+        }
+    }
+
+    /**
+     * Borra los huérfanos tal cual, sin pasar por las bajas normales (que descontarían
+     * referencias). Los por contenido se borran uno a uno con su registro bloqueado, por
+     * si alguno se volvió a subir después de la búsqueda.
+     */
+    private int eliminar(List<String> huerfanas, String almacenamiento) {
+        if (huerfanas.isEmpty()) {
+            return 0;
+        }
+        logger.info("Eliminando {} archivos huérfanos de {}", huerfanas.size(), almacenamiento);
+        List<String> otras = new ArrayList<>();
+        int eliminadas = 0;
+        for (String key : huerfanas) {
+            if (!MediaBlobRegistry.esContenido(key)) {
+                otras.add(key);
+                continue;
+            }
+            try {
+                if (mediaBlobRegistry.eliminarHuerfano(key, almacenamiento, () -> borrar(List.of(key), almacenamiento))) {
+                    eliminadas++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("No se pudo eliminar el huérfano {} de {}: {}", key, almacenamiento, e.getMessage());
+            }
+        }
+        if (otras.isEmpty()) {
+            return eliminadas;
+        }
+        try {
+            borrar(otras, almacenamiento);
+            return eliminadas + otras.size();
+        } catch (RuntimeException e) {
+            logger.warn("No se pudieron eliminar huérfanos de {}: {}", almacenamiento, e.getMessage());
+            return eliminadas;
+        }
+    }
+
+    private void borrar(List<String> keys, String almacenamiento) {
+        if (LOCAL.equals(almacenamiento)) {
+            keys.forEach(localStorageService::deleteFile);
+            return;
+        }
+        try {
+            almacenamientoGateway.eliminarEnS3(keys);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Llaves de la lista que ninguna fila referencia. Las por contenido se buscan en
+     * media_blobs (que lleva sus referencias); las demás en las columnas de llaves.
+     * Una variante está referenciada si lo está la imagen de la que se generó.
+     */
+    private List<String> huerfanas(List<String> keys, String almacenamiento) {
+        List<String> contenido = new ArrayList<>();
+        List<String> otras = new ArrayList<>();
+        for (String key : keys) {
+            (MediaBlobRegistry.esContenido(key) ? contenido : otras).add(key);
+        }
+
+        List<String> huerfanas = new ArrayList<>();
+        if (!contenido.isEmpty()) {
+            Set<String> referenciadas = buscar("media_blobs", "clave", " AND almacenamiento = ?",
+                    List.of(almacenamiento), contenido);
+            huerfanas.addAll(noReferenciadas(contenido, referenciadas));
+        }
+        if (!otras.isEmpty()) {
+            Set<String> referenciadas = new HashSet<>();
+            for (String[] columna : REFERENCIAS) {
+                referenciadas.addAll(buscar(columna[0], columna[1], "", Collections.emptyList(), otras));
+            }
+            huerfanas.addAll(noReferenciadas(otras, referenciadas));
+        }
+        return huerfanas;
+    }
+
+    private static List<String> noReferenciadas(List<String> keys, Set<String> referenciadas) {
+        Set<String> bases = new HashSet<>();
+        for (String referenciada : referenciadas) {
+            bases.add(ImagenVariantesService.baseVariantes(referenciada));
+        }
+        List<String> huerfanas = new ArrayList<>();
+        for (String key : keys) {
+            String base = ImagenVariantesService.baseDeVariante(key);
+            if (!referenciadas.contains(key) && (base == null || !bases.contains(base))) {
+                huerfanas.add(key);
+            }
+        }
+        return huerfanas;
+    }
+
+    /**
+     * Valores de la columna que coinciden con alguna de las llaves, o que son la
+     * original de alguna variante (misma base con cualquier extensión). Usa el índice
+     * de la columna: IN para las exactas y LIKE por prefijo para las variantes.
+     */
+    private Set<String> buscar(String tabla, String columna, String filtro, List<Object> parametrosFiltro,
+                               List<String> keys) {
+        List<String> condiciones = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+        condiciones.add(columna + " IN (" + String.join(",", Collections.nCopies(keys.size(), "?")) + ")");
+        parametros.addAll(keys);
+        for (String key : keys) {
+            String base = ImagenVariantesService.baseDeVariante(key);
+            if (base != null) {
+                condiciones.add(columna + " = ?");
+                parametros.add(base);
+                condiciones.add(columna + " LIKE ? ESCAPE '!'");
+                parametros.add(escaparLike(base) + ".%");
+            }
+        }
+        parametros.addAll(parametrosFiltro);
+        String sql = "SELECT " + columna + " FROM " + tabla +
+                " WHERE (" + String.join(" OR ", condiciones) + ")" + filtro;
+        return new HashSet<>(jdbcTemplate.queryForList(sql, String.class, parametros.toArray()));
+    }
+
+    private static String escaparLike(String valor) {
+        return valor.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        planificador.shutdownNow();
+    }
+}
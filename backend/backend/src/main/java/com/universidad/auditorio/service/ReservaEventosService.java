@@ -0,0 +1,224 @@
+package com.universidad.auditorio.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universidad.auditorio.dto.ReservaEventoDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Canales server-sent events con los cambios de reservas: uno por auditorio
+ * ("auditorio:{id}") y uno para la cola de administración ("admin").
+ * Las conexiones son asíncronas (SseEmitter), así que una conexión inactiva no
+ * ocupa un hilo de Tomcat. Cada suscriptor tiene su propio buffer acotado y a lo
+ * sumo una tarea de envío en el pool, así un cliente lento solo se retrasa a sí
+ * mismo; si llena su buffer se le cierra la conexión (el EventSource reconecta
+ * y vuelve a consultar). ReservaService nunca espera a un cliente.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservaEventosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaEventosService.class);
+
+    public static final String CANAL_ADMIN = "admin";
+
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long HEARTBEAT_SEGUNDOS = 25;
+    private static final int BUFFER_SUSCRIPTOR = 64;
+    private static final int HILOS_ENVIO = 4;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Set<Suscriptor>> canales = new ConcurrentHashMap<>();
+
+    // Pool de envío compartido; la cola contiene como mucho una tarea por suscriptor
+    private final ThreadPoolExecutor envios = new ThreadPoolExecutor(HILOS_ENVIO, HILOS_ENVIO,
+            0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10_000), r -> {
+                Thread t = new Thread(r, "sse-envios");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sse-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void iniciar() {
+        // Comentario SSE periódico: mantiene vivos los proxies y detecta conexiones cerradas.
+        // No pasa por el buffer de eventos: solo se marca y se envía si el suscriptor está al día.
+        heartbeat.scheduleAtFixedRate(() -> canales.values().forEach(s -> s.forEach(Suscriptor::pedirPing)),
+                HEARTBEAT_SEGUNDOS, HEARTBEAT_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    public static String canalAuditorio(Long auditorioId) {
+        return "auditorio:" + auditorioId;
+    }
+
+    /**
+     * Registra un nuevo suscriptor en el canal indicado.
+     */
+    public SseEmitter suscribir(String canal) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        Suscriptor suscriptor = new Suscriptor(canal, emitter);
+        // Alta y baja se hacen dentro de compute sobre la misma clave: un canal que queda
+        // vacío se quita del mapa sin perder un suscriptor que llega en ese momento
+        canales.compute(canal, (k, suscriptores) -> {
+            Set<Suscriptor> set = suscriptores != null ? suscriptores : ConcurrentHashMap.newKeySet();
+            set.add(suscriptor);
+            return set;
+        });
+
+        emitter.onCompletion(suscriptor::quitar);
+        emitter.onTimeout(suscriptor::quitar);
+        emitter.onError(e -> suscriptor.quitar());
+        return emitter;
+    }
+
+    /**
+     * Publica el cambio solo después del commit (o de inmediato si no hay transacción).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservaCambio(ReservaEventoDTO evento) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            logger.warn("No se pudo serializar el evento de reserva {}: {}", evento.getId(), e.getMessage());
+            return;
+        }
+        publicar(CANAL_ADMIN, new Evento(evento.getTipo().name(), json));
+
+        // El canal por auditorio es público: sin el usuario que reservó
+        ReservaEventoDTO publico = new ReservaEventoDTO(evento.getTipo(), evento.getId(), evento.getAuditorioId(),
+                null, evento.getFecha(), evento.getHoraInicio(), evento.getHoraFin(), evento.getEstado());
+        try {
+            json = objectMapper.writeValueAsString(publico);
+        } catch (JsonProcessingException e) {
+            logger.warn("No se pudo serializar el evento de reserva {}: {}", evento.getId(), e.getMessage());
+            return;
+        }
+        publicar(canalAuditorio(evento.getAuditorioId()), new Evento(evento.getTipo().name(), json));
+    }
+
+    private void publicar(String canal, Evento evento) {
+        Set<Suscriptor> suscriptores = canales.get(canal);
+        if (suscriptores != null) {
+            suscriptores.forEach(s -> s.encolar(evento));
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        heartbeat.shutdownNow();
+        envios.shutdownNow();
+        canales.values().forEach(s -> s.forEach(suscriptor -> suscriptor.emitter.complete()));
+    }
+
+    private record Evento(String nombre, String json) {
+    }
+
+    /**
+     * Conexión de un cliente: buffer propio de eventos pendientes y como mucho una
+     * tarea de envío en curso, así los envíos a un mismo emitter nunca se cruzan.
+     */
+    private final class Suscriptor {
+
+        private final String canal;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Evento> pendientes = new ArrayBlockingQueue<>(BUFFER_SUSCRIPTOR);
+        private final AtomicBoolean programado = new AtomicBoolean();
+        private volatile boolean ping;
+
+        private Suscriptor(String canal, SseEmitter emitter) {
+            this.canal = canal;
+            this.emitter = emitter;
+        }
+
+        void encolar(Evento evento) {
+            if (!pendientes.offer(evento)) {
+                descartar(new IllegalStateException("Cliente SSE demasiado lento: buffer lleno"));
+                return;
+            }
+            programar();
+        }
+
+        void pedirPing() {
+            // Si hay eventos pendientes la conexión ya tiene tráfico, no hace falta el ping
+            if (pendientes.isEmpty()) {
+                ping = true;
+                programar();
+            }
+        }
+
+        private void programar() {
+            if (programado.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::drenar);
+                } catch (RejectedExecutionException e) {
+                    programado.set(false);
+                    descartar(e);
+                }
+            }
+        }
+
+        private void drenar() {
+            try {
+                Evento evento;
+                while ((evento = pendientes.poll()) != null) {
+                    emitter.send(SseEmitter.event().name(evento.nombre()).data(evento.json(), MediaType.APPLICATION_JSON));
+                }
+                if (ping) {
+                    ping = false;
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado: se descarta sin afectar al resto
+                descartar(e);
+                return;
+            } finally {
+                programado.set(false);
+            }
+            // Algo llegó mientras se terminaba esta tarea
+            if (!pendientes.isEmpty() || ping) {
+                programar();
+            }
+        }
+
+        void quitar() {
+            canales.computeIfPresent(canal, (k, suscriptores) -> {
+                suscriptores.remove(this);
+                return suscriptores.isEmpty() ? null : suscriptores;
+            });
+        }
+
+        private void descartar(Throwable causa) {
+            quitar();
+            pendientes.clear();
+            emitter.completeWithError(causa);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.universidad.auditorio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universidad.auditorio.dto.ReservaDTO;
+import com.universidad.auditorio.repository.ReservaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta el historial de reservas en CSV o NDJSON escribiendo fila por fila
+ * sobre la respuesta. Las filas se leen con un cursor de solo avance y se
+ * proyectan a DTO, así que el heap usado no depende del tamaño del historial.
+ */
+@Service
+public class ReservaExportService {
+
+    /** Filas entre cada flush hacia el cliente (las proyecciones a DTO no quedan en el contexto de persistencia) */
+    private static final int TAMANO_BLOQUE = 500;
+
+    private static final String CABECERA_CSV =
+            "id,fecha,horaInicio,horaFin,estado,auditorioId,auditorio,usuarioId,usuario,rol,motivo,observaciones";
+
+    private final ReservaRepository reservaRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservaExportService(ReservaRepository reservaRepository, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.reservaRepository = reservaRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Escribe todo el historial en el stream indicado. Se ejecuta en su propia
+     * transacción de solo lectura porque corre en el hilo asíncrono de la respuesta.
+     */
+    public void exportarHistorial(Formato formato, OutputStream out) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<ReservaDTO> filas = reservaRepository.streamHistorial()) {
+                if (formato == Formato.CSV) {
+                    writer.write(CABECERA_CSV);
+                    writer.write('\n');
+                }
+                int escritas = 0;
+                Iterator<ReservaDTO> it = filas.iterator();
+                while (it.hasNext()) {
+                    ReservaDTO reserva = it.next();
+                    if (formato == Formato.CSV) {
+                        escribirCsv(writer, reserva);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(reserva));
+                        writer.write('\n');
+                    }
+                    if (++escritas % TAMANO_BLOQUE == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error al exportar historial", e);
+            }
+        });
+    }
+
+    private void escribirCsv(Writer writer, ReservaDTO r) throws IOException {
+        ReservaDTO.AuditorioSimpleDTO auditorio = r.getAuditorio();
+        ReservaDTO.UsuarioSimpleDTO usuario = r.getUsuario();
+        writer.write(String.valueOf(r.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(r.getFecha()));
+        writer.write(',');
+        writer.write(String.valueOf(r.getHoraInicio()));
+        writer.write(',');
+        writer.write(String.valueOf(r.getHoraFin()));
+        writer.write(',');
+        writer.write(r.getEstado() != null ? r.getEstado().name() : "");
+        writer.write(',');
+        writer.write(String.valueOf(auditorio.getId()));
+        writer.write(',');
+        writer.write(csv(auditorio.getNombre()));
+        writer.write(',');
+        writer.write(String.valueOf(usuario.getId()));
+        writer.write(',');
+        writer.write(csv(usuario.getEmail()));
+        writer.write(',');
+        writer.write(usuario.getRol() != null ? usuario.getRol() : "");
+        writer.write(',');
+        writer.write(csv(r.getMotivo()));
+        writer.write(',');
+        writer.write(csv(r.getObservaciones()));
+        writer.write('\n');
+    }
+
+    /**
+     * Escapa un valor según RFC 4180 (comillas si contiene separadores). Los valores que
+     * empiezan con =, +, - o @ (o tab / retorno de carro) se prefijan con ' para que una
+     * hoja de cálculo no los interprete como fórmula.
+     */
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (!valor.isEmpty() && "=+-@\t\r".indexOf(valor.charAt(0)) >= 0) {
+            valor = "'" + valor;
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,85 +1,109 @@
 package com.universidad.auditorio.service;
 
+import com.universidad.auditorio.dto.PaginaDTO;
+import com.universidad.auditorio.dto.ReservaFiltroDTO;
 import com.universidad.auditorio.dto.ReservaDTO;
+import com.universidad.auditorio.dto.ReservaEventoDTO;
+import com.universidad.auditorio.dto.ReservaSerieRequestDTO;
+import com.universidad.auditorio.dto.ReservaSerieResultadoDTO;
+import com.universidad.auditorio.model.Auditorio;
 import com.universidad.auditorio.model.EstadoReserva;
 import com.universidad.auditorio.model.Reserva;
-import com.universidad.auditorio.model.RolUsuario;
-import com.universidad.auditorio.repository.AuditorioRepository;
+import com.universidad.auditorio.model.Usuario;
 import com.universidad.auditorio.repository.ReservaRepository;
+import com.universidad.auditorio.repository.ReservaSpecifications;
 import com.universidad.auditorio.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ReservaService {
 
     private final ReservaRepository reservaRepository;
-    private final AuditorioRepository auditorioRepository;
+    private final AuditorioCatalogo auditorioCatalogo;
     private final UsuarioRepository usuarioRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional(readOnly = true)
-    public List<Reserva> getAllReservas() {
-        return reservaRepository.findAllWithRelations();
-    }
+    /** Máximo de ocurrencias por serie (un año de reservas semanales) */
+    private static final int MAX_OCURRENCIAS_SERIE = 52;
 
-    @Transactional(readOnly = true)
-    public List<Reserva> getReservasByEstado(EstadoReserva estado) {
-        return reservaRepository.findAllWithRelations().stream()
-                .filter(r -> r.getEstado() == estado)
-                .collect(Collectors.toList());
-    }
+    public static final int LIMITE_POR_DEFECTO = 100;
+    public static final int LIMITE_MAXIMO = 500;
 
+    // Cursor inicial: mayor que cualquier (fecha, id) real
+    private static final LocalDate FECHA_CENTINELA = LocalDate.of(9999, 12, 31);
+
+    /**
+     * Página de reservas que cumplen el filtro (cualquier combinación de estados, rol,
+     * auditorio, usuario y rango de fechas), ordenadas por (fecha, id) descendente.
+     * El filtrado ocurre en BD y las filas se proyectan directo a ReservaDTO.
+     */
     @Transactional(readOnly = true)
-    public List<Reserva> getReservasByRolUsuario(RolUsuario rol) {
-        return reservaRepository.findAllWithRelations().stream()
-                .filter(r -> r.getUsuario() != null && r.getUsuario().getRol() == rol)
-                .collect(Collectors.toList());
+    public PaginaDTO<ReservaDTO> buscarReservas(ReservaFiltroDTO filtro, String cursor, Integer limite) {
+        int tamano = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        Specification<Reserva> spec = ReservaSpecifications.desdeFiltro(filtro);
+        
+        LocalDate fecha = FECHA_CENTINELA;
+        Long id = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] partes = cursor.split("_", 2);
+                fecha = LocalDate.parse(partes[0]);
+                id = Long.parseLong(partes[1]);
+            } catch (Exception e) {
+                throw new RuntimeException("Cursor de paginación inválido: " + cursor);
+            }
+        }
+        
+        // Se pide una fila extra para saber si hay página siguiente
+        List<ReservaDTO> filas = reservaRepository.findDTOs(
+                spec.and(ReservaSpecifications.despuesDe(fecha, id)), tamano + 1);
+        String siguiente = null;
+        if (filas.size() > tamano) {
+            filas = new ArrayList<>(filas.subList(0, tamano));
+            ReservaDTO ultima = filas.get(tamano - 1);
+            siguiente = ultima.getFecha() + "_" + ultima.getId();
+        }
+        // El total (COUNT sobre índices) solo se calcula en la primera página
+        Long total = cursor == null || cursor.isEmpty() ? reservaRepository.count(spec) : null;
+        return new PaginaDTO<>(filas, siguiente, total);
     }
 
     @Transactional(readOnly = true)
-    public List<Reserva> getReservasByAuditorio(Long auditorioId) {
-        return reservaRepository.findByAuditorioId(auditorioId);
+    public List<ReservaDTO> getReservasByAuditorio(Long auditorioId) {
+        return reservaRepository.findDTOByAuditorioId(auditorioId);
     }
 
     @Transactional(readOnly = true)
-    public List<Reserva> getReservasByUsuario(Long usuarioId) {
+    public List<ReservaDTO> getReservasByUsuario(Long usuarioId) {
         // Verificar que el usuario existe
         if (!usuarioRepository.existsById(usuarioId)) {
             return new ArrayList<>(); // Retornar lista vacía si el usuario no existe
         }
-        
-        // Obtener reservas (las relaciones se cargarán automáticamente con EAGER)
-        List<Reserva> reservas = reservaRepository.findByUsuarioId(usuarioId);
-        
-        // Filtrar reservas con relaciones válidas
-        List<Reserva> reservasValidas = new ArrayList<>();
-        for (Reserva r : reservas) {
-            try {
-                // Verificar que las relaciones estén cargadas y sean válidas
-                if (r.getAuditorio() != null && r.getUsuario() != null) {
-                    // Acceder a propiedades para forzar carga (si es necesario)
-                    Long auditorioId = r.getAuditorio().getId();
-                    Long usuarioIdFromReserva = r.getUsuario().getId();
-                    
-                    if (auditorioId != null && usuarioIdFromReserva != null) {
-                        reservasValidas.add(r);
-                    }
-                }
-            } catch (Exception e) {
-                // Ignorar reservas con problemas de carga
-                System.err.println("Advertencia: Reserva con ID " + (r != null ? r.getId() : "null") + 
-                                 " tiene relaciones inválidas: " + e.getMessage());
-            }
-        }
-        return reservasValidas;
+        // Los INNER JOIN de la proyección ya descartan reservas con relaciones inválidas
+        return reservaRepository.findDTOByUsuarioId(usuarioId);
     }
 
     /**
@@ -124,55 +148,186 @@ public class ReservaService {
     }
 
     @Transactional(readOnly = true)
-    public List<Reserva> getReservasByAuditorioAndFecha(Long auditorioId, LocalDate fecha) {
-        return reservaRepository.findByAuditorioAndFecha(auditorioId, fecha);
+    public List<ReservaDTO> getReservasByAuditorioAndFecha(Long auditorioId, LocalDate fecha) {
+        return reservaRepository.findDTOByAuditorioAndFecha(auditorioId, fecha);
     }
 
     @Transactional
     public Reserva createReserva(Reserva reserva) {
         // Validar que el auditorio existe
-        auditorioRepository.findById(reserva.getAuditorio().getId())
-                .orElseThrow(() -> new RuntimeException("Auditorio no encontrado"));
+        if (!auditorioCatalogo.existe(reserva.getAuditorio().getId())) {
+            throw new RuntimeException("Auditorio no encontrado");
+        }
         
         // Validar que el usuario existe
         usuarioRepository.findById(reserva.getUsuario().getId())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
-        // Validar que no hay conflictos de horario
-        List<Reserva> conflictos = reservaRepository.findConflictingReservas(
-                reserva.getAuditorio().getId(),
-                reserva.getFecha(),
-                reserva.getHoraInicio(),
-                reserva.getHoraFin()
-        );
+        validarHorario(reserva, null);
         
-        if (!conflictos.isEmpty()) {
-            throw new RuntimeException("El auditorio ya está reservado en ese horario");
+        // Las nuevas reservas empiezan en estado SOLICITADA
+        if (reserva.getEstado() == null) {
+            reserva.setEstado(EstadoReserva.SOLICITADA);
         }
         
-        // Validar que la hora de fin es posterior a la hora de inicio
-        if (reserva.getHoraFin().isBefore(reserva.getHoraInicio()) || 
-            reserva.getHoraFin().equals(reserva.getHoraInicio())) {
+        Reserva guardada = reservaRepository.save(reserva);
+        publicarEvento(ReservaEventoDTO.Tipo.CREADA, guardada);
+        return guardada;
+    }
+
+    /**
+     * Crea una serie de reservas recurrentes en una sola transacción.
+     * Las ocurrencias se validan todas contra una única consulta por rango y se
+     * insertan con un batch JDBC (las reservas nuevas no tienen cascadas que JPA deba manejar).
+     * Si hay conflictos y no se pidió omitirlos, no se inserta nada y solo se reportan.
+     */
+    @Transactional
+    public ReservaSerieResultadoDTO createSerie(ReservaSerieRequestDTO request) {
+        if (request.getFechaInicio() == null || request.getFechaFin() == null
+                || request.getHoraInicio() == null || request.getHoraFin() == null) {
+            throw new RuntimeException("Fechas y horas de la serie son requeridas");
+        }
+        if (!request.getHoraFin().isAfter(request.getHoraInicio())) {
             throw new RuntimeException("La hora de fin debe ser posterior a la hora de inicio");
         }
+        if (request.getFechaFin().isBefore(request.getFechaInicio())) {
+            throw new RuntimeException("La fecha de fin de la serie debe ser posterior a la de inicio");
+        }
         
-        // Validar que la fecha no sea en el pasado
-        if (reserva.getFecha().isBefore(LocalDate.now())) {
-            throw new RuntimeException("No se pueden hacer reservas en fechas pasadas");
+        Auditorio auditorio = auditorioCatalogo.findById(request.getAuditorioId())
+                .orElseThrow(() -> new RuntimeException("Auditorio no encontrado"));
+        Usuario usuario = usuarioRepository.findById(request.getUsuarioId())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        
+        List<LocalDate> ocurrencias = expandirSerie(request);
+        
+        // Una sola consulta para todo el rango de la serie, agrupada por fecha
+        Map<LocalDate, List<LocalTime[]>> ocupadas = new HashMap<>();
+        for (Object[] fila : reservaRepository.findIntervalosEnRangoByAuditorio(
+                auditorio.getId(), request.getFechaInicio(), request.getFechaFin())) {
+            ocupadas.computeIfAbsent((LocalDate) fila[1], k -> new ArrayList<>())
+                    .add(new LocalTime[]{(LocalTime) fila[2], (LocalTime) fila[3]});
         }
         
-        // Las nuevas reservas empiezan en estado SOLICITADA
-        if (reserva.getEstado() == null) {
-            reserva.setEstado(EstadoReserva.SOLICITADA);
+        List<LocalDate> libres = new ArrayList<>();
+        List<ReservaSerieResultadoDTO.ConflictoDTO> conflictos = new ArrayList<>();
+        LocalDate hoy = LocalDate.now();
+        for (LocalDate fecha : ocurrencias) {
+            if (fecha.isBefore(hoy)) {
+                conflictos.add(new ReservaSerieResultadoDTO.ConflictoDTO(fecha, "Fecha pasada"));
+            } else if (seCruza(ocupadas.get(fecha), request.getHoraInicio(), request.getHoraFin())) {
+                conflictos.add(new ReservaSerieResultadoDTO.ConflictoDTO(fecha, "El auditorio ya está reservado en ese horario"));
+            } else {
+                libres.add(fecha);
+            }
         }
         
-        return reservaRepository.save(reserva);
+        if (!conflictos.isEmpty() && !request.isOmitirConflictos()) {
+            return new ReservaSerieResultadoDTO(new ArrayList<>(), conflictos);
+        }
+        
+        List<ReservaDTO> creadas = new ArrayList<>();
+        if (!libres.isEmpty()) {
+            List<Long> ids = insertarSerie(auditorio.getId(), usuario.getId(), libres, request);
+            for (int i = 0; i < libres.size(); i++) {
+                Reserva reserva = new Reserva();
+                reserva.setId(ids.get(i));
+                reserva.setAuditorio(auditorio);
+                reserva.setUsuario(usuario);
+                reserva.setFecha(libres.get(i));
+                reserva.setHoraInicio(request.getHoraInicio());
+                reserva.setHoraFin(request.getHoraFin());
+                reserva.setMotivo(request.getMotivo());
+                reserva.setObservaciones(request.getObservaciones());
+                reserva.setEstado(EstadoReserva.SOLICITADA);
+                creadas.add(toDTO(reserva));
+                publicarEvento(ReservaEventoDTO.Tipo.CREADA, reserva);
+            }
+        }
+        return new ReservaSerieResultadoDTO(creadas, conflictos);
     }
 
+    /**
+     * Genera las fechas de la serie cada 1 o 2 semanas, sin las excepciones
+     */
+    private List<LocalDate> expandirSerie(ReservaSerieRequestDTO request) {
+        int semanas = request.getFrecuencia() != null ? request.getFrecuencia().getSemanas() : 1;
+        HashSet<LocalDate> excepciones = request.getExcepciones() != null
+                ? new HashSet<>(request.getExcepciones()) : new HashSet<>();
+        
+        List<LocalDate> fechas = new ArrayList<>();
+        for (LocalDate fecha = request.getFechaInicio(); !fecha.isAfter(request.getFechaFin()); fecha = fecha.plusWeeks(semanas)) {
+            if (!excepciones.contains(fecha)) {
+                fechas.add(fecha);
+            }
+            if (fechas.size() > MAX_OCURRENCIAS_SERIE) {
+                throw new RuntimeException("Una serie no puede tener más de " + MAX_OCURRENCIAS_SERIE + " ocurrencias");
+            }
+        }
+        if (fechas.isEmpty()) {
+            throw new RuntimeException("La serie no tiene ocurrencias");
+        }
+        return fechas;
+    }
+
+    private static boolean seCruza(List<LocalTime[]> intervalos, LocalTime horaInicio, LocalTime horaFin) {
+        if (intervalos == null) {
+            return false;
+        }
+        for (LocalTime[] intervalo : intervalos) {
+            if (intervalo[0].isBefore(horaFin) && intervalo[1].isAfter(horaInicio)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Long> insertarSerie(Long auditorioId, Long usuarioId, List<LocalDate> fechas,
+                                     ReservaSerieRequestDTO request) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(
+                        "INSERT INTO reservas (auditorio_id, usuario_id, fecha, hora_inicio, hora_fin, motivo, estado, observaciones) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, auditorioId);
+                        ps.setLong(2, usuarioId);
+                        ps.setDate(3, Date.valueOf(fechas.get(i)));
+                        ps.setTime(4, Time.valueOf(request.getHoraInicio()));
+                        ps.setTime(5, Time.valueOf(request.getHoraFin()));
+                        ps.setString(6, request.getMotivo());
+                        ps.setString(7, EstadoReserva.SOLICITADA.name());
+                        ps.setString(8, request.getObservaciones());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return fechas.size();
+                    }
+                },
+                keyHolder);
+        
+        List<Long> ids = new ArrayList<>();
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    @Transactional
     public Reserva updateReserva(Long id, Reserva reservaDetails) {
         Reserva reserva = reservaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
         
+        LocalDate fechaAnterior = reserva.getFecha();
+        EstadoReserva estadoAnterior = reserva.getEstado();
+        boolean cambioHorario = !Objects.equals(fechaAnterior, reservaDetails.getFecha())
+                || !Objects.equals(reserva.getHoraInicio(), reservaDetails.getHoraInicio())
+                || !Objects.equals(reserva.getHoraFin(), reservaDetails.getHoraFin());
+        
         reserva.setFecha(reservaDetails.getFecha());
         reserva.setHoraInicio(reservaDetails.getHoraInicio());
         reserva.setHoraFin(reservaDetails.getHoraFin());
@@ -183,25 +338,80 @@ public class ReservaService {
             reserva.setEstado(reservaDetails.getEstado());
         }
         
-        return reservaRepository.save(reserva);
+        // Se valida si cambió el horario o si una cancelada vuelve a ocupar el auditorio
+        if (reserva.getEstado() != EstadoReserva.CANCELADA) {
+            if (cambioHorario) {
+                validarHorario(reserva, id);
+            } else if (estadoAnterior == EstadoReserva.CANCELADA) {
+                validarSinConflicto(reserva, id);
+            }
+        }
+        
+        Reserva guardada = reservaRepository.save(reserva);
+        publicarEvento(ReservaEventoDTO.Tipo.ACTUALIZADA, guardada);
+        return guardada;
     }
 
+    @Transactional
     public void deleteReserva(Long id) {
         Reserva reserva = reservaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
         reserva.setEstado(EstadoReserva.CANCELADA);
-        reservaRepository.save(reserva);
+        Reserva guardada = reservaRepository.save(reserva);
+        publicarEvento(ReservaEventoDTO.Tipo.CANCELADA, guardada);
     }
 
+    @Transactional
     public Reserva cambiarEstadoReserva(Long id, EstadoReserva estado) {
         Reserva reserva = reservaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada"));
+        // Reactivar una cancelada: su horario pudo haberse ocupado mientras tanto
+        if (reserva.getEstado() == EstadoReserva.CANCELADA && estado != EstadoReserva.CANCELADA) {
+            validarSinConflicto(reserva, id);
+        }
         reserva.setEstado(estado);
-        return reservaRepository.save(reserva);
+        Reserva guardada = reservaRepository.save(reserva);
+        publicarEvento(estado == EstadoReserva.CANCELADA ? ReservaEventoDTO.Tipo.CANCELADA : ReservaEventoDTO.Tipo.ESTADO,
+                guardada);
+        return guardada;
     }
-}
-
-
 
+    /**
+     * Notifica el cambio a los suscriptores SSE (se envía después del commit)
+     */
+    private void publicarEvento(ReservaEventoDTO.Tipo tipo, Reserva reserva) {
+        eventPublisher.publishEvent(new ReservaEventoDTO(tipo, reserva.getId(),
+                reserva.getAuditorio().getId(), reserva.getUsuario().getId(), reserva.getFecha(),
+                reserva.getHoraInicio(), reserva.getHoraFin(), reserva.getEstado()));
+    }
 
+    /**
+     * Valida el horario de una reserva: fin posterior al inicio, fecha no pasada
+     * y sin solapamiento con otras reservas activas del mismo auditorio.
+     */
+    private void validarHorario(Reserva reserva, Long excludeId) {
+        // Validar que la hora de fin es posterior a la hora de inicio
+        if (reserva.getHoraFin().isBefore(reserva.getHoraInicio()) || 
+            reserva.getHoraFin().equals(reserva.getHoraInicio())) {
+            throw new RuntimeException("La hora de fin debe ser posterior a la hora de inicio");
+        }
+        
+        // Validar que la fecha no sea en el pasado
+        if (reserva.getFecha().isBefore(LocalDate.now())) {
+            throw new RuntimeException("No se pueden hacer reservas en fechas pasadas");
+        }
+        
+        validarSinConflicto(reserva, excludeId);
+    }
 
+    /**
+     * Verifica que el horario no se cruce con otra reserva activa del auditorio
+     * (una consulta EXISTS sobre el índice auditorio/fecha/estado/hora).
+     */
+    private void validarSinConflicto(Reserva reserva, Long excludeId) {
+        if (reservaRepository.existsConflicto(reserva.getAuditorio().getId(), reserva.getFecha(),
+                reserva.getHoraInicio(), reserva.getHoraFin(), excludeId)) {
+            throw new RuntimeException("El auditorio ya está reservado en ese horario");
+        }
+    }
+}
@@ -3,29 +3,120 @@ package com.universidad.auditorio.service;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.SdkClientException;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.universidad.auditorio.dto.ObjetoAlmacenadoDTO;
+import com.universidad.auditorio.dto.PaginaDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class S3Service {
 
+    private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
+
     @Autowired(required = false)
     private AmazonS3 amazonS3;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
+    /** Validez mínima de una URL presignada entregada */
+    private static final long VALIDEZ_URL_MS = 1000 * 60 * 60;
+    /** Máximo de URLs cacheadas; al superarlo se descartan las de tramos viejos */
+    private static final int MAX_URLS_CACHEADAS = 10_000;
+    /** Límite de llaves por request de DeleteObjects */
+    private static final int MAX_LLAVES_POR_DELETE = 1000;
+
+    /**
+     * URLs presignadas por key. Dentro de un mismo tramo de tiempo se entrega siempre
+     * la misma URL (byte a byte), así el navegador puede cachear el archivo.
+     * El tramo coincide con el de CatalogoCache para que el ETag del catálogo cambie junto con las URLs.
+     */
+    private final ConcurrentHashMap<String, UrlFirmada> urlsFirmadas = new ConcurrentHashMap<>();
+
+    private record UrlFirmada(long tramo, String url) {
+    }
+
+    /** S3 exige partes de al menos 5MB (salvo la última) */
+    private static final long TAMANO_MINIMO_PARTE = 5L * 1024 * 1024;
+
+    // Archivos desde este tamaño se suben por partes en paralelo
+    @Value("${aws.s3.multipart.umbral:16MB}")
+    private String umbralMultipart;
+
+    @Value("${aws.s3.multipart.tamano-parte:8MB}")
+    private String tamanoParteConfig;
+
+    @Value("${aws.s3.multipart.concurrencia:4}")
+    private int concurrenciaPartes;
+
+    @Value("${aws.s3.multipart.reintentos:3}")
+    private int reintentosParte;
+
+    private long umbralBytes;
+    private int tamanoParte;
+    private ThreadPoolExecutor partesExecutor;
+
+    @PostConstruct
+    public void iniciar() {
+        umbralBytes = DataSize.parse(umbralMultipart).toBytes();
+        tamanoParte = (int) Math.max(TAMANO_MINIMO_PARTE, DataSize.parse(tamanoParteConfig).toBytes());
+        int hilos = Math.max(1, concurrenciaPartes);
+        // Pool compartido por todas las subidas; si la cola se llena sube el propio hilo del request
+        partesExecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(hilos * 4), r -> {
+                    Thread t = new Thread(r, "s3-partes");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        partesExecutor.shutdownNow();
+    }
+
     /**
      * Sube un archivo y retorna la KEY (ruta relativa), no la URL completa.
      */
@@ -36,6 +127,29 @@ public class S3Service {
 
         // Generar nombre único: folder/uuid_nombreOriginal
         String fileName = folder + "/" + UUID.randomUUID() + "_" + file.getOriginalFilename();
+        return subirObjeto(file, fileName);
+    }
+
+    /**
+     * Sube un archivo por contenido con su llave ya calculada. Las referencias las lleva
+     * AlmacenamientoGateway en MediaBlobRegistry; aquí solo se escribe el objeto.
+     */
+    void subirContenido(MultipartFile file, String key) throws IOException {
+        if (amazonS3 == null) {
+            throw new IOException("AWS S3 no está configurado (Cliente Nulo)");
+        }
+        subirObjeto(file, key);
+    }
+
+    boolean existeObjeto(String key) {
+        return amazonS3 != null && amazonS3.doesObjectExist(bucketName, key);
+    }
+
+    private String subirObjeto(MultipartFile file, String fileName) throws IOException {
+        // Videos grandes: subida por partes en paralelo
+        if (file.getSize() >= umbralBytes) {
+            return uploadMultipart(file, fileName);
+        }
 
         ObjectMetadata metadata = new ObjectMetadata();
         metadata.setContentLength(file.getSize());
@@ -43,6 +157,7 @@ public class S3Service {
 
         try {
             amazonS3.putObject(new PutObjectRequest(bucketName, fileName, file.getInputStream(), metadata));
+            urlsFirmadas.remove(fileName);
             System.out.println(">>> S3 Upload exitoso: " + fileName);
         } catch (AmazonServiceException e) {
             throw new IOException("Error S3: " + e.getMessage(), e);
@@ -53,11 +168,149 @@ public class S3Service {
         return fileName;
     }
 
+    /**
+     * Subida multipart: el archivo se lee secuencialmente en partes de tamaño fijo y las
+     * partes se suben en paralelo en el pool, con reintentos por parte. Como mucho hay
+     * {@code concurrencia} partes en memoria por subida. Si alguna parte falla se deja de
+     * leer, se cancelan las pendientes y se aborta la subida para no dejar partes huérfanas.
+     */
+    private String uploadMultipart(MultipartFile file, String key) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(file.getContentType());
+
+        String uploadId;
+        try {
+            uploadId = amazonS3.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucketName, key, metadata)).getUploadId();
+        } catch (SdkClientException e) {
+            throw new IOException("Error iniciando subida multipart: " + e.getMessage(), e);
+        }
+
+        long inicio = System.currentTimeMillis();
+        List<Future<PartETag>> partes = new ArrayList<>();
+        Semaphore enVuelo = new Semaphore(Math.max(1, concurrenciaPartes));
+        AtomicReference<Exception> fallo = new AtomicReference<>();
+        try (InputStream in = file.getInputStream()) {
+            int numeroParte = 1;
+            byte[] buffer;
+            while (fallo.get() == null && (buffer = in.readNBytes(tamanoParte)).length > 0) {
+                enVuelo.acquire();
+                int numero = numeroParte++;
+                byte[] contenido = buffer;
+                partes.add(partesExecutor.submit(() -> {
+                    try {
+                        return uploadPart(key, uploadId, numero, contenido);
+                    } catch (Exception e) {
+                        fallo.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        enVuelo.release();
+                    }
+                }));
+            }
+
+            List<PartETag> etags = new ArrayList<>(partes.size());
+            for (Future<PartETag> parte : partes) {
+                etags.add(parte.get());
+            }
+            amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, etags));
+            urlsFirmadas.remove(key);
+            logger.info("Subida multipart a S3 completa: {} ({} partes, {} ms)", key, etags.size(),
+                    System.currentTimeMillis() - inicio);
+            return key;
+        } catch (Exception e) {
+            partes.forEach(parte -> parte.cancel(true));
+            abortMultipart(key, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable causa = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Error en subida multipart a S3: " + causa.getMessage(), causa);
+        }
+    }
+
+    /**
+     * Rondas de partes en paralelo que lleva subir un archivo de este tamaño
+     * (0 si se sube con un solo PUT).
+     */
+    long rondasDeSubida(long bytes) {
+        if (bytes < umbralBytes) {
+            return 0;
+        }
+        long partes = (bytes + tamanoParte - 1) / tamanoParte;
+        int concurrencia = Math.max(1, concurrenciaPartes);
+        return (partes + concurrencia - 1) / concurrencia;
+    }
+
+    private PartETag uploadPart(String key, String uploadId, int numero, byte[] contenido) throws InterruptedException {
+        for (int intento = 1; ; intento++) {
+            try {
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(numero)
+                        .withPartSize(contenido.length)
+                        .withInputStream(new ByteArrayInputStream(contenido));
+                return amazonS3.uploadPart(request).getPartETag();
+            } catch (SdkClientException e) {
+                if (intento >= reintentosParte || !esReintentable(e)) {
+                    throw e;
+                }
+                logger.warn("Reintentando parte {} de {} (intento {}): {}", numero, key, intento, e.getMessage());
+                Thread.sleep(200L << (intento - 1));
+            }
+        }
+    }
+
+    private void abortMultipart(String key, String uploadId) {
+        try {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+        } catch (Exception e) {
+            logger.warn("Error abortando subida multipart de {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Solo se reintentan errores transitorios: fallas de red del cliente, 5xx y throttling.
+     * Un 4xx (credenciales, bucket inexistente, uploadId inválido) fallaría igual en cada intento.
+     */
+    private static boolean esReintentable(SdkClientException e) {
+        if (e instanceof AmazonServiceException servicio) {
+            return RetryUtils.isRetryableServiceException(servicio) || RetryUtils.isThrottlingException(servicio)
+                    || RetryUtils.isClockSkewError(servicio);
+        }
+        return e.isRetryable();
+    }
+
+    /**
+     * Sube contenido ya generado en memoria con una key fija (por ejemplo variantes de imagen).
+     */
+    public void uploadBytes(String key, byte[] contenido, String contentType) throws IOException {
+        if (amazonS3 == null) {
+            throw new IOException("AWS S3 no está configurado (Cliente Nulo)");
+        }
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contenido.length);
+        metadata.setContentType(contentType);
+
+        try {
+            amazonS3.putObject(new PutObjectRequest(bucketName, key, new ByteArrayInputStream(contenido), metadata));
+            urlsFirmadas.remove(key);
+        } catch (AmazonServiceException e) {
+            throw new IOException("Error S3: " + e.getMessage(), e);
+        } catch (SdkClientException e) {
+            throw new IOException("Error conexión AWS: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Elimina el archivo de S3 usando la Key.
      */
     public void deleteFile(String key) {
         if (amazonS3 == null || key == null || key.isEmpty()) return;
+        urlsFirmadas.remove(key);
         try {
             amazonS3.deleteObject(bucketName, key);
             System.out.println(">>> S3 Delete exitoso: " + key);
@@ -67,8 +320,95 @@ public class S3Service {
     }
 
     /**
-     * Genera una URL PRESIGNADA (Válida por 1 hora) para ver archivos privados.
+     * Elimina varias llaves con DeleteObjects (hasta 1000 por request) en lugar de un
+     * DELETE por objeto. Borra los objetos tal cual: las referencias de las llaves por
+     * contenido se descuentan antes, en AlmacenamientoGateway.
+     */
+    public void deleteFiles(Collection<String> keys) {
+        if (amazonS3 == null || keys.isEmpty()) return;
+        List<String> objetos = new ArrayList<>();
+        for (String key : keys) {
+            if (key == null || key.isEmpty()) continue;
+            urlsFirmadas.remove(key);
+            objetos.add(key);
+        }
+        for (int i = 0; i < objetos.size(); i += MAX_LLAVES_POR_DELETE) {
+            eliminarObjetos(objetos.subList(i, Math.min(i + MAX_LLAVES_POR_DELETE, objetos.size())));
+        }
+    }
+
+    /**
+     * Borra un objeto por contenido junto con sus variantes de imagen (que también son compartidas).
+     * Corre con la fila del registro bloqueada, así una subida concurrente del mismo contenido
+     * no puede quedar borrada.
+     */
+    void eliminarContenido(String key) {
+        List<String> objetos = new ArrayList<>();
+        objetos.add(key);
+        for (ImagenVariantesService.Variante variante : ImagenVariantesService.Variante.values()) {
+            String keyVariante = ImagenVariantesService.keyVariante(key, variante);
+            urlsFirmadas.remove(keyVariante);
+            objetos.add(keyVariante);
+        }
+        eliminarObjetos(objetos);
+        logger.info("S3: eliminado {} (última referencia)", key);
+    }
+
+    private void eliminarObjetos(List<String> keys) {
+        DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName)
+                .withKeys(keys.toArray(new String[0]))
+                .withQuiet(true);
+        try {
+            amazonS3.deleteObjects(request);
+        } catch (MultiObjectDeleteException e) {
+            // Los que fallaron quedan huérfanos y los limpia la reconciliación
+            List<String> fallidas = e.getErrors().stream()
+                    .map(error -> error.getKey() + " (" + error.getCode() + ")")
+                    .toList();
+            logger.warn("Error eliminando {} de {} objetos de S3: {}", fallidas.size(), keys.size(), fallidas);
+        }
+    }
+
+    /**
+     * Una página del listado del bucket en orden de llave, a partir de la llave cursor
+     * (exclusiva). El siguiente cursor es la última llave devuelta, o null al terminar.
+     */
+    public PaginaDTO<ObjetoAlmacenadoDTO> listar(String cursor, int limite) {
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withMaxKeys(limite);
+        if (cursor != null) {
+            request.setStartAfter(cursor);
+        }
+        ListObjectsV2Result resultado = amazonS3.listObjectsV2(request);
+        List<ObjetoAlmacenadoDTO> items = new ArrayList<>();
+        for (S3ObjectSummary resumen : resultado.getObjectSummaries()) {
+            items.add(new ObjetoAlmacenadoDTO(resumen.getKey(), null, resumen.getSize(), null,
+                    LocalDateTime.ofInstant(resumen.getLastModified().toInstant(), ZoneId.systemDefault())));
+        }
+        String siguiente = resultado.isTruncated() && !items.isEmpty() ? items.get(items.size() - 1).getKey() : null;
+        return new PaginaDTO<>(items, siguiente, null);
+    }
+
+    public boolean isConfigurado() {
+        return amazonS3 != null;
+    }
+
+    /**
+     * URL presignada ya generada en el tramo actual, o null (no firma ni llama a AWS).
+     */
+    public String getPresignedUrlCacheada(String key) {
+        if (key == null) return null;
+        UrlFirmada cacheada = urlsFirmadas.get(key);
+        long tramo = System.currentTimeMillis() / CatalogoCache.TRAMO_MS;
+        return cacheada != null && cacheada.tramo() == tramo ? cacheada.url() : null;
+    }
+
+    /**
+     * Genera una URL PRESIGNADA (Válida por 1 hora como mínimo) para ver archivos privados.
      * Esta es la clave para que funcionen los GET.
+     * La expiración se alinea al fin del tramo actual + 1 hora, y la URL se reutiliza
+     * mientras dure el tramo, en lugar de firmar una nueva en cada llamada.
      */
     public String getPresignedUrl(String key) {
         if (amazonS3 == null || key == null || key.isEmpty()) return null;
@@ -76,12 +416,15 @@ public class S3Service {
         // Si la llave ya parece una URL completa (http...), devolverla tal cual (caso legacy o local)
         if (key.startsWith("http")) return key;
 
+        long tramo = System.currentTimeMillis() / CatalogoCache.TRAMO_MS;
+        UrlFirmada cacheada = urlsFirmadas.get(key);
+        if (cacheada != null && cacheada.tramo() == tramo) {
+            return cacheada.url();
+        }
+
         try {
-            // La URL expira en 1 hora
-            Date expiration = new Date();
-            long expTimeMillis = expiration.getTime();
-            expTimeMillis += 1000 * 60 * 60;
-            expiration.setTime(expTimeMillis);
+            // Expira 1 hora después del fin del tramo: igual para todas las firmas del tramo
+            Date expiration = new Date((tramo + 1) * CatalogoCache.TRAMO_MS + VALIDEZ_URL_MS);
 
             GeneratePresignedUrlRequest generatePresignedUrlRequest =
                     new GeneratePresignedUrlRequest(bucketName, key)
@@ -89,10 +432,19 @@ public class S3Service {
                             .withExpiration(expiration);
 
             URL url = amazonS3.generatePresignedUrl(generatePresignedUrlRequest);
-            return url.toString();
+            if (urlsFirmadas.size() >= MAX_URLS_CACHEADAS) {
+                urlsFirmadas.values().removeIf(u -> u.tramo() != tramo);
+                if (urlsFirmadas.size() >= MAX_URLS_CACHEADAS) {
+                    urlsFirmadas.clear();
+                }
+            }
+            // Si otro hilo firmó la misma key en este tramo, entregar esa para que todas coincidan
+            UrlFirmada firmada = urlsFirmadas.merge(key, new UrlFirmada(tramo, url.toString()),
+                    (actual, nueva) -> actual.tramo() == tramo ? actual : nueva);
+            return firmada.url();
         } catch (Exception e) {
             System.err.println("Error generando URL presignada: " + e.getMessage());
             return null;
         }
     }
-}
\ No newline at end of file
+}
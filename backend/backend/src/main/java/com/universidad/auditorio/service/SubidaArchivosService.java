@@ -0,0 +1,264 @@
+package com.universidad.auditorio.service;
+
+import com.universidad.auditorio.dto.TrabajoSubidaDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Subidas de imagen y video de auditorios en segundo plano. El request reserva un
+ * lugar en la cola y copia los archivos a temporales antes de guardar el auditorio
+ * (con la cola llena se rechaza sin haber persistido nada); después devuelve el id
+ * del trabajo y un pool acotado sube los archivos y actualiza imagenKey/videoKey.
+ * El estado se consulta por id y los trabajos terminados se retienen un tiempo.
+ */
+@Service
+@RequiredArgsConstructor
+public class SubidaArchivosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubidaArchivosService.class);
+
+    private static final long RETENCION_MINUTOS = 60;
+    private static final int HILOS = 2;
+    private static final int COLA = 100;
+
+    private final AuditorioService auditorioService;
+    private final ImagenVariantesService imagenVariantesService;
+
+    private final ConcurrentHashMap<String, TrabajoSubidaDTO> trabajos = new ConcurrentHashMap<>();
+
+    /** Lugares de la cola (en ejecución + en espera); se reservan antes de persistir */
+    private final Semaphore plazas = new Semaphore(HILOS + COLA);
+
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(HILOS, HILOS, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(COLA), r -> {
+                Thread t = new Thread(r, "subida-archivos");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Reserva un lugar en la cola y copia los archivos a temporales. Se llama antes de
+     * guardar el auditorio; usar con try-with-resources para que, si el guardado falla,
+     * se libere el lugar y se borren los temporales.
+     *
+     * @throws RejectedExecutionException si la cola de subidas está llena (GlobalExceptionHandler responde 503)
+     */
+    public PlazaSubida reservarPlaza(MultipartFile imagen, MultipartFile video) throws IOException {
+        boolean conImagen = imagen != null && !imagen.isEmpty();
+        boolean conVideo = video != null && !video.isEmpty();
+        if (!conImagen && !conVideo) {
+            return new PlazaSubida(null, null);
+        }
+        // Se valida antes de guardar nada; el video solo tiene el límite global del multipart
+        imagenVariantesService.validarTamano(imagen);
+        if (!plazas.tryAcquire()) {
+            throw new RejectedExecutionException("Hay demasiadas subidas en curso, intente nuevamente en unos minutos");
+        }
+
+        ArchivoTemporal imagenTemporal = null;
+        try {
+            imagenTemporal = conImagen ? ArchivoTemporal.desde(imagen) : null;
+            ArchivoTemporal videoTemporal = conVideo ? ArchivoTemporal.desde(video) : null;
+            return new PlazaSubida(imagenTemporal, videoTemporal);
+        } catch (IOException | RuntimeException e) {
+            if (imagenTemporal != null) imagenTemporal.eliminar();
+            plazas.release();
+            throw e;
+        }
+    }
+
+    public Optional<TrabajoSubidaDTO> getTrabajo(String id) {
+        return Optional.ofNullable(trabajos.get(id)).map(this::copiar);
+    }
+
+    /**
+     * Lugar reservado en la cola con los archivos ya copiados. {@link #iniciar} lanza
+     * el trabajo; si nunca se inicia, {@link #close} devuelve el lugar.
+     */
+    public final class PlazaSubida implements AutoCloseable {
+
+        private final ArchivoTemporal imagen;
+        private final ArchivoTemporal video;
+        private boolean iniciada;
+
+        private PlazaSubida(ArchivoTemporal imagen, ArchivoTemporal video) {
+            this.imagen = imagen;
+            this.video = video;
+        }
+
+        /**
+         * Encola la subida para el auditorio ya guardado.
+         *
+         * @return id del trabajo, o null si no se envió ningún archivo
+         */
+        public String iniciar(Long auditorioId) {
+            iniciada = true;
+            if (imagen == null && video == null) {
+                return null;
+            }
+            purgarTerminados();
+
+            String id = UUID.randomUUID().toString();
+            TrabajoSubidaDTO trabajo = new TrabajoSubidaDTO(id, auditorioId, TrabajoSubidaDTO.Estado.PENDIENTE,
+                    (imagen != null ? 1 : 0) + (video != null ? 1 : 0), 0, null, null, LocalDateTime.now(), null);
+            trabajos.put(id, trabajo);
+
+            TareaSubida tarea = new TareaSubida(trabajo, imagen, video);
+            try {
+                // El lugar ya está reservado: solo se rechaza si el servicio se está apagando
+                workers.execute(tarea);
+            } catch (RejectedExecutionException e) {
+                tarea.descartar("El servicio de subidas se está deteniendo");
+            }
+            return id;
+        }
+
+        @Override
+        public void close() {
+            if (!iniciada && (imagen != null || video != null)) {
+                if (imagen != null) imagen.eliminar();
+                if (video != null) video.eliminar();
+                plazas.release();
+            }
+        }
+    }
+
+    /**
+     * Trabajo en la cola; conserva los temporales para poder borrarlos si se apaga el pool.
+     */
+    private final class TareaSubida implements Runnable {
+
+        private final TrabajoSubidaDTO trabajo;
+        private final ArchivoTemporal imagen;
+        private final ArchivoTemporal video;
+
+        private TareaSubida(TrabajoSubidaDTO trabajo, ArchivoTemporal imagen, ArchivoTemporal video) {
+            this.trabajo = trabajo;
+            this.imagen = imagen;
+            this.video = video;
+        }
+
+        @Override
+        public void run() {
+            try {
+                procesar(trabajo, imagen, video);
+            } finally {
+                liberar();
+            }
+        }
+
+        void descartar(String motivo) {
+            actualizar(trabajo, t -> {
+                t.setEstado(TrabajoSubidaDTO.Estado.ERROR);
+                t.setError(motivo);
+                t.setTerminadoEn(LocalDateTime.now());
+            });
+            liberar();
+        }
+
+        private void liberar() {
+            if (imagen != null) imagen.eliminar();
+            if (video != null) video.eliminar();
+            plazas.release();
+        }
+    }
+
+    private void procesar(TrabajoSubidaDTO trabajo, ArchivoTemporal imagen, ArchivoTemporal video) {
+        long inicio = System.currentTimeMillis();
+        actualizar(trabajo, t -> t.setEstado(TrabajoSubidaDTO.Estado.EN_PROCESO));
+        List<String> enLocal = new ArrayList<>();
+        try {
+            if (imagen != null) {
+                if (auditorioService.reemplazarImagen(trabajo.getAuditorioId(), imagen).respaldoLocal()) {
+                    enLocal.add("imagen");
+                }
+                actualizar(trabajo, t -> t.setArchivosSubidos(t.getArchivosSubidos() + 1));
+            }
+            if (video != null) {
+                if (auditorioService.reemplazarVideo(trabajo.getAuditorioId(), video).respaldoLocal()) {
+                    enLocal.add("video");
+                }
+                actualizar(trabajo, t -> t.setArchivosSubidos(t.getArchivosSubidos() + 1));
+            }
+            actualizar(trabajo, t -> {
+                if (enLocal.isEmpty()) {
+                    t.setEstado(TrabajoSubidaDTO.Estado.COMPLETADO);
+                } else {
+                    t.setEstado(TrabajoSubidaDTO.Estado.COMPLETADO_LOCAL);
+                    t.setAdvertencia("S3 no disponible: " + String.join(" y ", enLocal)
+                            + " quedó en el almacenamiento local del servidor");
+                }
+                t.setTerminadoEn(LocalDateTime.now());
+            });
+            logger.info("Subida {} del auditorio {} completada en {} ms{}", trabajo.getId(),
+                    trabajo.getAuditorioId(), System.currentTimeMillis() - inicio,
+                    enLocal.isEmpty() ? "" : " (en almacenamiento local: " + enLocal + ")");
+        } catch (Exception e) {
+            logger.warn("Subida {} del auditorio {} falló: {}", trabajo.getId(), trabajo.getAuditorioId(),
+                    e.getMessage());
+            actualizar(trabajo, t -> {
+                t.setEstado(TrabajoSubidaDTO.Estado.ERROR);
+                t.setError(e.getMessage());
+                t.setTerminadoEn(LocalDateTime.now());
+            });
+        }
+    }
+
+    /**
+     * Los cambios de estado se hacen bajo el lock del trabajo para que las consultas
+     * (que devuelven una copia) no vean estados a medias.
+     */
+    private void actualizar(TrabajoSubidaDTO trabajo, Consumer<TrabajoSubidaDTO> cambio) {
+        synchronized (trabajo) {
+            cambio.accept(trabajo);
+        }
+    }
+
+    private TrabajoSubidaDTO copiar(TrabajoSubidaDTO trabajo) {
+        synchronized (trabajo) {
+            return new TrabajoSubidaDTO(trabajo.getId(), trabajo.getAuditorioId(), trabajo.getEstado(),
+                    trabajo.getArchivosTotales(), trabajo.getArchivosSubidos(), trabajo.getError(),
+                    trabajo.getAdvertencia(), trabajo.getCreadoEn(), trabajo.getTerminadoEn());
+        }
+    }
+
+    private void purgarTerminados() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(RETENCION_MINUTOS);
+        List<String> vencidos = new ArrayList<>();
+        trabajos.forEach((id, t) -> {
+            LocalDateTime terminado = copiar(t).getTerminadoEn();
+            if (terminado != null && terminado.isBefore(limite)) {
+                vencidos.add(id);
+            }
+        });
+        vencidos.forEach(trabajos::remove);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        // Los trabajos que no llegaron a correr dejan sus temporales: borrarlos aquí
+        for (Runnable pendiente : workers.shutdownNow()) {
+            if (pendiente instanceof TareaSubida tarea) {
+                tarea.descartar("El servicio de subidas se detuvo antes de procesar el trabajo");
+            }
+        }
+    }
+}
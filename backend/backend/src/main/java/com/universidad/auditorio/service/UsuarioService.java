@@ -1,14 +1,18 @@
 package com.universidad.auditorio.service;
 
 import com.universidad.auditorio.model.Usuario;
+import com.universidad.auditorio.repository.ReservaRepository;
 import com.universidad.auditorio.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @RequiredArgsConstructor
@@ -16,9 +20,11 @@ public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
-    private final S3Service s3Service;
-    private final LocalStorageService localStorageService;
+    private final AlmacenamientoGateway almacenamientoGateway;
     private final FileUrlService fileUrlService;
+    private final ImagenVariantesService imagenVariantesService;
+    private final ReservaRepository reservaRepository;
+    private final EliminacionMediaService eliminacionMediaService;
 
     public List<Usuario> getAllUsuarios() {
         return usuarioRepository.findAll();
@@ -121,8 +127,46 @@ public class UsuarioService {
         return usuarioRepository.save(usuario);
     }
 
+    /**
+     * Rehace el hash si se generó con un costo de BCrypt menor al actual. Es best-effort:
+     * si el pool de hashing está saturado se intenta en el siguiente login.
+     */
+    public void rehashSiCorresponde(Usuario usuario, String rawPassword) {
+        if (usuario.getPassword() == null || !passwordEncoder.upgradeEncoding(usuario.getPassword())) {
+            return;
+        }
+        try {
+            usuarioRepository.actualizarPassword(usuario.getId(), passwordEncoder.encode(rawPassword));
+        } catch (RejectedExecutionException e) {
+            // Se reintenta en el próximo login
+        }
+    }
+
+    /**
+     * Elimina el usuario con DELETEs en bloque (sus reservas primero) sin cargar su
+     * historial, y deja el borrado de la imagen a la cola de segundo plano.
+     */
+    @Transactional
     public void deleteUsuario(Long id) {
-        usuarioRepository.deleteById(id);
+        Usuario usuario = usuarioRepository.findById(id).orElse(null);
+        if (usuario == null) {
+            return;
+        }
+
+        List<String> archivos = new ArrayList<>();
+        archivos.add(usuario.getImagenKey());
+        archivos.addAll(ImagenVariantesService.keysVariantes(usuario.getImagenKey(), usuario.getImagenVariantes()));
+
+        reservaRepository.deleteByUsuarioId(id);
+        usuarioRepository.eliminarPorId(id);
+        eliminacionMediaService.encolar(archivos);
+    }
+
+    /**
+     * Rechaza la foto de perfil si supera el tamaño máximo de imágenes
+     */
+    public void validarImagen(MultipartFile file) {
+        imagenVariantesService.validarTamano(file);
     }
 
     /**
@@ -130,35 +174,34 @@ public class UsuarioService {
      * Intenta usar S3, si falla usa almacenamiento local
      */
     public String uploadImagen(Long usuarioId, MultipartFile file) throws Exception {
+        validarImagen(file);
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        String key;
-
-        try {
-            // Eliminar anterior de S3
-            if (usuario.getImagenKey() != null) {
-                s3Service.deleteFile(usuario.getImagenKey());
-            }
-            // Subir nueva
-            key = s3Service.uploadFile(file, "usuarios/imagenes");
-        } catch (Exception e) {
-            // Fallback local
-            if (usuario.getImagenKey() != null) {
-                localStorageService.deleteFile(usuario.getImagenKey());
-            }
-            key = localStorageService.uploadFile(file, "usuarios/imagenes");
+        // Eliminar anterior (de S3 o local, donde esté)
+        if (usuario.getImagenKey() != null) {
+            almacenamientoGateway.eliminar(usuario.getImagenKey());
+            imagenVariantesService.eliminarVariantes(usuario.getImagenKey(), usuario.getImagenVariantes());
         }
+        // Subir nueva (S3, o local si S3 no está disponible)
+        String key = almacenamientoGateway.subir(file, "usuarios/imagenes");
 
         usuario.setImagenKey(key);
+        usuario.setImagenVariantes(null);
         usuarioRepository.save(usuario);
 
-        // CORRECCIÓN: Retornar URL presignada de S3
-        String url = s3Service.getPresignedUrl(key);
-        if (url == null) {
-            url = "http://localhost:8080/" + key; // Fallback local
-        }
-        return url;
+        // Variantes reducidas de la foto de perfil en segundo plano
+        String keyImagen = key;
+        imagenVariantesService.generar(key, file, variantes -> {
+            String codigos = ImagenVariantesService.codigos(variantes);
+            // Si la foto se reemplazó mientras tanto, estas variantes ya no tienen dueño
+            if (usuarioRepository.actualizarVariantes(usuarioId, keyImagen, codigos) == 0) {
+                imagenVariantesService.eliminarVariantes(keyImagen, codigos);
+            }
+        });
+
+        // Retornar URL presignada de S3 (o local)
+        return almacenamientoGateway.urlPublica(key);
     }
 }
 
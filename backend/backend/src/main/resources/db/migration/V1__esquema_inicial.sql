@@ -1,17 +1,15 @@
 -- ============================================
--- SCHEMA SQL - Sistema de Reserva de Auditorios
+-- V1 - Esquema inicial - Sistema de Reserva de Auditorios
 -- LAMB University
 -- ============================================
-
--- Eliminar tablas si existen (en orden inverso de dependencias)
-DROP TABLE IF EXISTS reservas;
-DROP TABLE IF EXISTS auditorios;
-DROP TABLE IF EXISTS usuarios;
+-- Aplicado una sola vez por SchemaMigrator (ver tabla schema_version).
+-- Usa IF NOT EXISTS / INSERT IGNORE para poder registrarse sobre bases
+-- creadas con el antiguo schema.sql sin perder datos.
 
 -- ============================================
 -- TABLA: usuarios
 -- ============================================
-CREATE TABLE usuarios (
+CREATE TABLE IF NOT EXISTS usuarios (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     email VARCHAR(255) NOT NULL UNIQUE,
     nombre VARCHAR(255) NOT NULL,
@@ -33,7 +31,7 @@ CREATE TABLE usuarios (
 -- ============================================
 -- TABLA: auditorios
 -- ============================================
-CREATE TABLE auditorios (
+CREATE TABLE IF NOT EXISTS auditorios (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     nombre VARCHAR(255) NOT NULL UNIQUE,
     capacidad INTEGER NOT NULL,
@@ -49,7 +47,7 @@ CREATE TABLE auditorios (
 -- ============================================
 -- TABLA: reservas
 -- ============================================
-CREATE TABLE reservas (
+CREATE TABLE IF NOT EXISTS reservas (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     auditorio_id BIGINT NOT NULL,
     usuario_id BIGINT NOT NULL,
@@ -81,7 +79,7 @@ CREATE TABLE reservas (
 -- Hash generado: $2a$10$7FpKddDvQlfrM8Sh0s/Z2Or27NkLf2nEDetdADyn50r2J5aw.CJgK
 
 -- Usuario Estudiante: david.romero / 12345678
-INSERT INTO usuarios (
+INSERT IGNORE INTO usuarios (
     email, nombre, apellido, password, dni, codigo_universitario, 
     ciclo_estudio, rol, ciclo, grupo, carrera_profesional
 ) VALUES (
@@ -99,7 +97,7 @@ INSERT INTO usuarios (
 );
 
 -- Usuario Docente: docente.prueba / 12345678
-INSERT INTO usuarios (
+INSERT IGNORE INTO usuarios (
     email, nombre, apellido, password, dni, codigo_universitario, 
     ciclo_estudio, rol, carrera_profesional
 ) VALUES (
@@ -116,7 +114,7 @@ INSERT INTO usuarios (
 
 -- Usuario Administrador: admin.admin / 12345678
 -- IMPORTANTE: La contraseña es "12345678" (el DNI del admin es "11111111" pero la contraseña es "12345678")
-INSERT INTO usuarios (
+INSERT IGNORE INTO usuarios (
     email, nombre, apellido, password, dni, codigo_universitario, 
     ciclo_estudio, rol
 ) VALUES (
@@ -133,7 +131,7 @@ INSERT INTO usuarios (
 -- ============================================
 -- DATOS INICIALES: Auditorios de Ejemplo
 -- ============================================
-INSERT INTO auditorios (nombre, capacidad, descripcion, ubicacion, activo) VALUES
+INSERT IGNORE INTO auditorios (nombre, capacidad, descripcion, ubicacion, activo) VALUES
     ('Auditorio Principal', 500, 'Auditorio principal con sistema de sonido y proyección', 'Edificio A - Piso 3', TRUE),
     ('Auditorio Pequeño', 100, 'Auditorio para eventos pequeños y presentaciones', 'Edificio B - Piso 2', TRUE),
     ('Sala de Conferencias', 50, 'Sala equipada para conferencias y reuniones', 'Edificio C - Piso 1', TRUE);
@@ -0,0 +1,49 @@
+-- ============================================
+-- V2 - Índices para las consultas frecuentes
+-- ============================================
+-- MySQL no tiene CREATE INDEX IF NOT EXISTS: cada índice se crea solo si no
+-- aparece en information_schema, así el script puede repetirse sin fallar.
+
+-- Conflictos de horario, ocupación por día y rango (ReservaIntervalIndex, disponibilidad)
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_reservas_auditorio_fecha_estado_hora ON reservas (auditorio_id, fecha, estado, hora_inicio)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'reservas' AND index_name = 'idx_reservas_auditorio_fecha_estado_hora');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- "Mis reservas" por usuario ordenadas por fecha
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_reservas_usuario_fecha ON reservas (usuario_id, fecha)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'reservas' AND index_name = 'idx_reservas_usuario_fecha');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Paginación por keyset sobre (fecha, id) y filtros por estado
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_reservas_fecha_id ON reservas (fecha, id)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'reservas' AND index_name = 'idx_reservas_fecha_id');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_reservas_estado_fecha_id ON reservas (estado, fecha, id)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'reservas' AND index_name = 'idx_reservas_estado_fecha_id');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Búsqueda de auditorios activos por capacidad
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_auditorios_activo_capacidad ON auditorios (activo, capacidad)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'auditorios' AND index_name = 'idx_auditorios_activo_capacidad');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,22 @@
+-- ============================================
+-- V3 - Variantes reducidas de imágenes
+-- ============================================
+-- El DDL de MySQL hace commit implícito: cada columna se agrega solo si no aparece
+-- en information_schema, así el script puede repetirse si falla a mitad de camino.
+
+-- Variantes ya generadas para la imagen actual ("thumb,card,full"); NULL si aún no hay
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'ALTER TABLE auditorios ADD COLUMN imagen_variantes VARCHAR(50) NULL AFTER imagen_key', 'SELECT 1')
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'auditorios' AND column_name = 'imagen_variantes');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'ALTER TABLE usuarios ADD COLUMN imagen_variantes VARCHAR(50) NULL AFTER imagen_key', 'SELECT 1')
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'usuarios' AND column_name = 'imagen_variantes');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,17 @@
+-- ============================================
+-- V4 - Almacenamiento de archivos por contenido (deduplicado)
+-- ============================================
+
+-- Un registro por objeto guardado con llave derivada del SHA-256 de su contenido.
+-- referencias = cuántos auditorios/usuarios apuntan a él; el objeto se borra al llegar a 0.
+-- Las referencias se cuentan una sola vez por llave, esté el objeto en S3 o en local;
+-- almacenamiento indica dónde está guardado.
+CREATE TABLE IF NOT EXISTS media_blobs (
+    clave VARCHAR(255) NOT NULL,
+    almacenamiento VARCHAR(10) NOT NULL,
+    hash CHAR(64) NOT NULL,
+    tamano BIGINT NOT NULL,
+    referencias INT NOT NULL DEFAULT 1,
+    creado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (clave)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,41 @@
+-- ============================================
+-- V5 - Reconciliación de archivos huérfanos
+-- ============================================
+
+-- Posición de la pasada en curso por almacenamiento, para retomarla tras un reinicio.
+-- cursor_posicion NULL = no hay pasada en curso (la siguiente empieza desde el inicio).
+CREATE TABLE IF NOT EXISTS reconciliacion_media (
+    almacenamiento VARCHAR(10) NOT NULL PRIMARY KEY,
+    cursor_posicion VARCHAR(1024) NULL,
+    revisados BIGINT NOT NULL DEFAULT 0,
+    eliminados BIGINT NOT NULL DEFAULT 0,
+    vuelta_iniciada_en TIMESTAMP NULL,
+    vuelta_terminada_en TIMESTAMP NULL,
+    actualizado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Búsqueda de referencias por llave (exacta o por prefijo para variantes de imagen).
+-- Cada índice se crea solo si no existe, así la migración puede volver a ejecutarse.
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_auditorios_imagen_key ON auditorios (imagen_key)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'auditorios' AND index_name = 'idx_auditorios_imagen_key');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_auditorios_video_key ON auditorios (video_key)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'auditorios' AND index_name = 'idx_auditorios_video_key');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0,
+    'CREATE INDEX idx_usuarios_imagen_key ON usuarios (imagen_key)', 'SELECT 1')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'usuarios' AND index_name = 'idx_usuarios_imagen_key');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,79 @@
+package com.universidad.auditorio.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaRequestHandlerTest {
+
+    private static final long TAMANO = 1000;
+    private static final String ETAG = "\"abc123\"";
+    /** Wed, 21 Oct 2015 07:28:00 GMT */
+    private static final long MODIFICADO = 1445412480000L;
+
+    @Test
+    void rangoCompletoYAbierto() {
+        assertArrayEquals(new long[]{0, 99}, MediaRequestHandler.parsearRango("bytes=0-99", TAMANO));
+        assertArrayEquals(new long[]{500, 999}, MediaRequestHandler.parsearRango("bytes=500-", TAMANO));
+    }
+
+    @Test
+    void elFinSeRecortaAlTamano() {
+        assertArrayEquals(new long[]{900, 999}, MediaRequestHandler.parsearRango("bytes=900-5000", TAMANO));
+    }
+
+    @Test
+    void rangoSufijo() {
+        assertArrayEquals(new long[]{900, 999}, MediaRequestHandler.parsearRango("bytes=-100", TAMANO));
+        // Un sufijo mayor que el archivo devuelve el archivo completo
+        assertArrayEquals(new long[]{0, 999}, MediaRequestHandler.parsearRango("bytes=-5000", TAMANO));
+    }
+
+    @Test
+    void rangosNoSatisfacibles() {
+        assertNull(MediaRequestHandler.parsearRango("bytes=1000-", TAMANO));
+        assertNull(MediaRequestHandler.parsearRango("bytes=500-100", TAMANO));
+        assertNull(MediaRequestHandler.parsearRango("bytes=-0", TAMANO));
+    }
+
+    @Test
+    void rangosQueSeIgnoran() {
+        // Varios rangos, otra unidad, formato inválido o números fuera de long: se envía todo (200)
+        assertArrayEquals(new long[0], MediaRequestHandler.parsearRango("bytes=0-10,20-30", TAMANO));
+        assertArrayEquals(new long[0], MediaRequestHandler.parsearRango("items=0-10", TAMANO));
+        assertArrayEquals(new long[0], MediaRequestHandler.parsearRango("bytes=-", TAMANO));
+        assertArrayEquals(new long[0], MediaRequestHandler.parsearRango("bytes=99999999999999999999-", TAMANO));
+    }
+
+    @Test
+    void sinIfRangeSiempreAplica() {
+        assertTrue(MediaRequestHandler.aplicaRango(new MockHttpServletRequest(), ETAG, MODIFICADO));
+    }
+
+    @Test
+    void ifRangeConEtag() {
+        assertTrue(MediaRequestHandler.aplicaRango(conIfRange(ETAG), ETAG, MODIFICADO));
+        assertFalse(MediaRequestHandler.aplicaRango(conIfRange("\"otro\""), ETAG, MODIFICADO));
+        // If-Range exige comparación fuerte: un ETag débil nunca coincide
+        assertFalse(MediaRequestHandler.aplicaRango(conIfRange("W/" + ETAG), ETAG, MODIFICADO));
+    }
+
+    @Test
+    void ifRangeConFecha() {
+        assertTrue(MediaRequestHandler.aplicaRango(conIfRange("Wed, 21 Oct 2015 07:28:00 GMT"), ETAG, MODIFICADO));
+        assertFalse(MediaRequestHandler.aplicaRango(conIfRange("Wed, 21 Oct 2015 07:29:00 GMT"), ETAG, MODIFICADO));
+        assertFalse(MediaRequestHandler.aplicaRango(conIfRange("Wed, 21 Oct 2015 07:27:00 GMT"), ETAG, MODIFICADO));
+        assertFalse(MediaRequestHandler.aplicaRango(conIfRange("no es una fecha"), ETAG, MODIFICADO));
+    }
+
+    private static MockHttpServletRequest conIfRange(String valor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_RANGE, valor);
+        return request;
+    }
+}
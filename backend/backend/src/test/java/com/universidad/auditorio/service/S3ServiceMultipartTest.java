@@ -0,0 +1,242 @@
+package com.universidad.auditorio.service;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Subida multipart de S3Service contra un S3 local mínimo (HttpServer del JDK que
+ * implementa initiate / upload part / complete / abort) con fallas inyectadas por parte.
+ */
+class S3ServiceMultipartTest {
+
+    private static final int MB = 1024 * 1024;
+    private static final String BUCKET = "bucket-test";
+
+    private S3Local s3;
+    private S3Service s3Service;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        s3 = new S3Local();
+        // Sin reintentos del SDK: los reintentos que se prueban son los de S3Service
+        AmazonS3 cliente = AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3.url(), "us-east-1"))
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("test", "test")))
+                .withClientConfiguration(new ClientConfiguration().withMaxErrorRetry(0))
+                .withPathStyleAccessEnabled(true)
+                .disableChunkedEncoding()
+                .build();
+
+        s3Service = new S3Service();
+        ReflectionTestUtils.setField(s3Service, "amazonS3", cliente);
+        ReflectionTestUtils.setField(s3Service, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(s3Service, "umbralMultipart", "5MB");
+        ReflectionTestUtils.setField(s3Service, "tamanoParteConfig", "5MB");
+        ReflectionTestUtils.setField(s3Service, "concurrenciaPartes", 4);
+        ReflectionTestUtils.setField(s3Service, "reintentosParte", 3);
+        s3Service.iniciar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        s3Service.cerrar();
+        s3.cerrar();
+    }
+
+    @Test
+    void subeLasPartesEnParaleloYCompleta() throws IOException {
+        s3Service.subirContenido(archivo(26 * MB), "media/video.mp4");
+
+        assertEquals(6, s3.partesRecibidas.size());
+        assertTrue(s3.maxEnVuelo.get() > 1, "las partes deberían subirse en paralelo");
+        assertEquals(1, s3.completadas.get());
+        assertEquals(0, s3.abortadas.get());
+    }
+
+    @Test
+    void reintentaUnaParteConError5xx() throws IOException {
+        s3.fallas.put(2, new Falla(500, "InternalError", 1));
+
+        s3Service.subirContenido(archivo(26 * MB), "media/video.mp4");
+
+        assertEquals(2, s3.intentos(2));
+        assertEquals(1, s3.completadas.get());
+        assertEquals(0, s3.abortadas.get());
+    }
+
+    @Test
+    void abortaSiUnaParteAgotaLosReintentos() {
+        s3.fallas.put(3, new Falla(503, "SlowDown", Integer.MAX_VALUE));
+
+        assertThrows(IOException.class, () -> s3Service.subirContenido(archivo(26 * MB), "media/video.mp4"));
+
+        assertEquals(3, s3.intentos(3));
+        assertEquals(0, s3.completadas.get());
+        assertEquals(1, s3.abortadas.get());
+    }
+
+    @Test
+    void unError4xxNoSeReintentaYAborta() {
+        s3.fallas.put(1, new Falla(403, "AccessDenied", Integer.MAX_VALUE));
+
+        assertThrows(IOException.class, () -> s3Service.subirContenido(archivo(26 * MB), "media/video.mp4"));
+
+        assertEquals(1, s3.intentos(1));
+        assertEquals(0, s3.completadas.get());
+        assertEquals(1, s3.abortadas.get());
+    }
+
+    @Test
+    void rondasDeSubidaSegunTamano() {
+        assertEquals(0, s3Service.rondasDeSubida(MB));
+        // 26MB en partes de 5MB son 6 partes: 2 rondas de 4 en paralelo
+        assertEquals(2, s3Service.rondasDeSubida(26L * MB));
+        assertEquals(25, s3Service.rondasDeSubida(500L * MB));
+    }
+
+    private static MockMultipartFile archivo(int tamano) {
+        byte[] contenido = new byte[tamano];
+        for (int i = 0; i < tamano; i++) {
+            contenido[i] = (byte) i;
+        }
+        return new MockMultipartFile("video", "video.mp4", "video/mp4", contenido);
+    }
+
+    private record Falla(int status, String codigo, int veces) {
+    }
+
+    /**
+     * S3 en memoria con lo justo para una subida multipart. Cada parte demora un poco
+     * para poder medir cuántas llegan en paralelo.
+     */
+    private static final class S3Local {
+
+        private final HttpServer server;
+        private final ExecutorService hilos = Executors.newFixedThreadPool(8);
+
+        final Map<Integer, Falla> fallas = new ConcurrentHashMap<>();
+        final Map<Integer, AtomicInteger> intentosPorParte = new ConcurrentHashMap<>();
+        final Map<Integer, String> partesRecibidas = new ConcurrentHashMap<>();
+        final AtomicInteger enVuelo = new AtomicInteger();
+        final AtomicInteger maxEnVuelo = new AtomicInteger();
+        final AtomicInteger completadas = new AtomicInteger();
+        final AtomicInteger abortadas = new AtomicInteger();
+
+        S3Local() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::atender);
+            server.setExecutor(hilos);
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        int intentos(int parte) {
+            AtomicInteger n = intentosPorParte.get(parte);
+            return n == null ? 0 : n.get();
+        }
+
+        void cerrar() {
+            server.stop(0);
+            hilos.shutdownNow();
+        }
+
+        private void atender(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String metodo = exchange.getRequestMethod();
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                byte[] cuerpo = exchange.getRequestBody().readAllBytes();
+
+                if ("POST".equals(metodo) && query.containsKey("uploads")) {
+                    responder(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET
+                            + "</Bucket><Key>k</Key><UploadId>subida-1</UploadId></InitiateMultipartUploadResult>");
+                } else if ("PUT".equals(metodo) && query.containsKey("partNumber")) {
+                    subirParte(exchange, Integer.parseInt(query.get("partNumber")), cuerpo);
+                } else if ("POST".equals(metodo) && query.containsKey("uploadId")) {
+                    completadas.incrementAndGet();
+                    responder(exchange, 200, "<CompleteMultipartUploadResult><Bucket>" + BUCKET
+                            + "</Bucket><Key>k</Key><ETag>\"final\"</ETag></CompleteMultipartUploadResult>");
+                } else if ("DELETE".equals(metodo) && query.containsKey("uploadId")) {
+                    abortadas.incrementAndGet();
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    error(exchange, 400, "InvalidRequest");
+                }
+            }
+        }
+
+        private void subirParte(HttpExchange exchange, int numero, byte[] cuerpo) throws IOException {
+            int intento = intentosPorParte.computeIfAbsent(numero, k -> new AtomicInteger()).incrementAndGet();
+            maxEnVuelo.accumulateAndGet(enVuelo.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                enVuelo.decrementAndGet();
+            }
+
+            Falla falla = fallas.get(numero);
+            if (falla != null && intento <= falla.veces()) {
+                error(exchange, falla.status(), falla.codigo());
+                return;
+            }
+            // El SDK valida que el ETag de la parte sea el MD5 de lo enviado
+            String etag = DigestUtils.md5DigestAsHex(cuerpo);
+            partesRecibidas.put(numero, etag);
+            exchange.getResponseHeaders().set("ETag", "\"" + etag + "\"");
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private static void error(HttpExchange exchange, int status, String codigo) throws IOException {
+            responder(exchange, status, "<Error><Code>" + codigo + "</Code><Message>" + codigo
+                    + "</Message><RequestId>test</RequestId></Error>");
+        }
+
+        private static void responder(HttpExchange exchange, int status, String xml) throws IOException {
+            byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+
+        private static Map<String, String> query(String raw) {
+            Map<String, String> valores = new ConcurrentHashMap<>();
+            if (raw == null) {
+                return valores;
+            }
+            for (String par : raw.split("&")) {
+                int igual = par.indexOf('=');
+                valores.put(igual < 0 ? par : par.substring(0, igual), igual < 0 ? "" : par.substring(igual + 1));
+            }
+            return valores;
+        }
+    }
+}
@@ -263,7 +263,7 @@ export class AppComponent implements OnInit {
 
   logout() {
     if (confirm('¿Estás seguro de que deseas cerrar sesión?')) {
-      localStorage.removeItem('currentUser');
+      this.authService.logout();
       this.isLoggedIn = false;
       this.router.navigate(['/']);
     }
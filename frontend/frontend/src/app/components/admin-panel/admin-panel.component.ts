@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { AdminService } from '../../services/admin.service';
@@ -101,6 +101,10 @@ import { Auditorio } from '../../models/auditorio.model';
             </div>
           </div>
         </div>
+
+        <div class="cargar-mas" *ngIf="!loadingPendientes && cursorPendientes">
+          <button class="btn btn-secondary" (click)="loadReservasPendientes(true)">Cargar más</button>
+        </div>
       </div>
 
       <!-- Tab: Reservas Confirmadas -->
@@ -133,6 +137,10 @@ import { Auditorio } from '../../models/auditorio.model';
             </div>
           </div>
         </div>
+
+        <div class="cargar-mas" *ngIf="!loadingConfirmadas && cursorConfirmadas">
+          <button class="btn btn-secondary" (click)="loadReservasConfirmadas(true)">Cargar más</button>
+        </div>
       </div>
 
       <!-- Tab: Historial -->
@@ -171,6 +179,10 @@ import { Auditorio } from '../../models/auditorio.model';
             </div>
           </div>
         </div>
+
+        <div class="cargar-mas" *ngIf="!loadingHistorial && cursorHistorial">
+          <button class="btn btn-secondary" (click)="loadHistorial(true)">Cargar más</button>
+        </div>
       </div>
 
       <!-- Tab: Gestionar Auditorios -->
@@ -194,7 +206,7 @@ import { Auditorio } from '../../models/auditorio.model';
         <div class="auditorios-grid" *ngIf="!loadingAuditorios && auditorios.length > 0">
           <div class="auditorio-card-admin" *ngFor="let auditorio of auditorios">
             <div class="auditorio-image-container" *ngIf="auditorio.imagenUrl">
-              <img [src]="auditorio.imagenUrl" [alt]="auditorio.nombre" (error)="onImageError($event)">
+              <img [src]="auditorio.imagenCardUrl || auditorio.imagenUrl" [alt]="auditorio.nombre" (error)="onImageError($event)">
             </div>
             <div class="auditorio-image-placeholder" *ngIf="!auditorio.imagenUrl">
               <span>Sin imagen</span>
@@ -283,7 +295,7 @@ import { Auditorio } from '../../models/auditorio.model';
                 (change)="onVideoAuditorioSelected($event)"
                 class="file-input"
               >
-              <small>Formatos: MP4, AVI, MOV (máx. 10MB)</small>
+              <small>Formatos: MP4, AVI, MOV (máx. 500MB)</small>
               <div *ngIf="previewVideoAuditorio" class="video-preview">
                 <video [src]="previewVideoAuditorio" controls></video>
                 <button type="button" class="btn-remove-image" (click)="removeVideoAuditorio()">×</button>
@@ -658,6 +670,12 @@ import { Auditorio } from '../../models/auditorio.model';
       gap: 8px;
     }
 
+    .cargar-mas {
+      display: flex;
+      justify-content: center;
+      margin-top: 20px;
+    }
+
     .btn-sm {
       padding: 8px 16px;
       font-size: 14px;
@@ -739,7 +757,7 @@ import { Auditorio } from '../../models/auditorio.model';
     }
   `]
 })
-export class AdminPanelComponent implements OnInit {
+export class AdminPanelComponent implements OnInit, OnDestroy {
   activeTab: 'pendientes' | 'confirmadas' | 'historial' | 'gestionar-auditorios' | 'auditorios' | 'usuarios' = 'pendientes';
   
   // Auditorios
@@ -759,6 +777,11 @@ export class AdminPanelComponent implements OnInit {
   filtroRol = '';
   filtroRolHistorial = '';
   
+  // Cursores de la siguiente página (null cuando ya no hay más)
+  cursorPendientes: string | null = null;
+  cursorConfirmadas: string | null = null;
+  cursorHistorial: string | null = null;
+  
   nuevoAuditorio: Partial<Auditorio> = {
     nombre: '',
     capacidad: 0,
@@ -807,17 +830,17 @@ export class AdminPanelComponent implements OnInit {
     this.loadHistorial();
   }
 
-  loadReservasPendientes() {
+  ngOnDestroy() {
+    this.setPreviewVideo(null);
+  }
+
+  loadReservasPendientes(masPaginas = false) {
     this.loadingPendientes = true;
-    const obs = this.filtroRol 
-      ? this.adminService.getReservasFiltradas(this.filtroRol)
-      : this.adminService.getReservasPendientes();
-    
-    obs.subscribe({
-      next: (reservas) => {
-        this.reservasPendientes = reservas.filter(r => 
-          r.estado === 'SOLICITADA' || r.estado === 'PENDIENTE'
-        );
+    const cursor = masPaginas ? this.cursorPendientes : null;
+    this.adminService.getReservasPendientes(this.filtroRol, cursor).subscribe({
+      next: (pagina) => {
+        this.reservasPendientes = masPaginas ? [...this.reservasPendientes, ...pagina.items] : pagina.items;
+        this.cursorPendientes = pagina.siguienteCursor;
         this.loadingPendientes = false;
       },
       error: (err) => {
@@ -827,11 +850,13 @@ export class AdminPanelComponent implements OnInit {
     });
   }
 
-  loadReservasConfirmadas() {
+  loadReservasConfirmadas(masPaginas = false) {
     this.loadingConfirmadas = true;
-    this.adminService.getReservasConfirmadas().subscribe({
-      next: (reservas) => {
-        this.reservasConfirmadas = reservas;
+    const cursor = masPaginas ? this.cursorConfirmadas : null;
+    this.adminService.getReservasConfirmadas(cursor).subscribe({
+      next: (pagina) => {
+        this.reservasConfirmadas = masPaginas ? [...this.reservasConfirmadas, ...pagina.items] : pagina.items;
+        this.cursorConfirmadas = pagina.siguienteCursor;
         this.loadingConfirmadas = false;
       },
       error: (err) => {
@@ -841,15 +866,13 @@ export class AdminPanelComponent implements OnInit {
     });
   }
 
-  loadHistorial() {
+  loadHistorial(masPaginas = false) {
     this.loadingHistorial = true;
-    const obs = this.filtroRolHistorial
-      ? this.adminService.getReservasFiltradas(this.filtroRolHistorial)
-      : this.adminService.getHistorialReservas();
-    
-    obs.subscribe({
-      next: (reservas) => {
-        this.historialReservas = reservas;
+    const cursor = masPaginas ? this.cursorHistorial : null;
+    this.adminService.getHistorialReservas(this.filtroRolHistorial, cursor).subscribe({
+      next: (pagina) => {
+        this.historialReservas = masPaginas ? [...this.historialReservas, ...pagina.items] : pagina.items;
+        this.cursorHistorial = pagina.siguienteCursor;
         this.loadingHistorial = false;
       },
       error: (err) => {
@@ -921,16 +944,13 @@ export class AdminPanelComponent implements OnInit {
   onVideoAuditorioSelected(event: any) {
     const file = event.target.files[0];
     if (file) {
-      if (file.size > 10 * 1024 * 1024) {
-        this.errorCrear = 'El video no debe exceder 10MB';
+      if (file.size > 500 * 1024 * 1024) {
+        this.errorCrear = 'El video no debe exceder 500MB';
         return;
       }
       this.videoAuditorio = file;
-      const reader = new FileReader();
-      reader.onload = (e: any) => {
-        this.previewVideoAuditorio = e.target.result;
-      };
-      reader.readAsDataURL(file);
+      // Para videos grandes no se lee el archivo completo: se usa una URL local del navegador
+      this.setPreviewVideo(URL.createObjectURL(file));
     }
   }
 
@@ -950,6 +970,14 @@ export class AdminPanelComponent implements OnInit {
     }
   }
 
+  // Las URLs blob: retienen el archivo en memoria del navegador hasta revocarlas
+  private setPreviewVideo(url: string | null) {
+    if (this.previewVideoAuditorio?.startsWith('blob:')) {
+      URL.revokeObjectURL(this.previewVideoAuditorio);
+    }
+    this.previewVideoAuditorio = url;
+  }
+
   removeImagenAuditorio() {
     this.imagenAuditorio = null;
     this.previewImagenAuditorio = null;
@@ -957,7 +985,7 @@ export class AdminPanelComponent implements OnInit {
 
   removeVideoAuditorio() {
     this.videoAuditorio = null;
-    this.previewVideoAuditorio = null;
+    this.setPreviewVideo(null);
   }
 
   removeImagenUsuario() {
@@ -1069,7 +1097,7 @@ export class AdminPanelComponent implements OnInit {
     this.imagenAuditorio = null;
     this.videoAuditorio = null;
     this.previewImagenAuditorio = null;
-    this.previewVideoAuditorio = null;
+    this.setPreviewVideo(null);
     this.activeTab = 'auditorios';
   }
 
@@ -1086,7 +1114,7 @@ export class AdminPanelComponent implements OnInit {
     this.imagenAuditorio = null;
     this.videoAuditorio = null;
     this.previewImagenAuditorio = auditorio.imagenUrl || null;
-    this.previewVideoAuditorio = auditorio.videoUrl || null;
+    this.setPreviewVideo(auditorio.videoUrl || null);
     this.activeTab = 'auditorios';
   }
 
@@ -1122,8 +1150,9 @@ export class AdminPanelComponent implements OnInit {
         this.imagenAuditorio || undefined,
         this.videoAuditorio || undefined
       ).subscribe({
-        next: () => {
+        next: (resp) => {
           this.successCrear = 'Auditorio actualizado exitosamente';
+          this.seguirSubida(resp.headers.get('X-Trabajo-Id'));
           this.creando = false;
           this.editandoAuditorio = false;
           this.auditorioEditando = null;
@@ -1144,8 +1173,9 @@ export class AdminPanelComponent implements OnInit {
         this.imagenAuditorio || undefined,
         this.videoAuditorio || undefined
       ).subscribe({
-        next: () => {
+        next: (resp) => {
           this.successCrear = 'Auditorio creado exitosamente';
+          this.seguirSubida(resp.headers.get('X-Trabajo-Id'));
           this.nuevoAuditorio = {
             nombre: '',
             capacidad: 0,
@@ -1156,7 +1186,7 @@ export class AdminPanelComponent implements OnInit {
           this.imagenAuditorio = null;
           this.videoAuditorio = null;
           this.previewImagenAuditorio = null;
-          this.previewVideoAuditorio = null;
+          this.setPreviewVideo(null);
           this.creando = false;
           this.loadAuditorios();
           setTimeout(() => {
@@ -1171,6 +1201,31 @@ export class AdminPanelComponent implements OnInit {
     }
   }
 
+  // Los archivos se suben en segundo plano: se informa el avance y se recarga la lista al terminar
+  seguirSubida(trabajoId: string | null) {
+    if (!trabajoId) {
+      return;
+    }
+    this.successCrear += ' (subiendo archivos...)';
+    this.adminService.esperarTrabajoSubida(trabajoId).subscribe({
+      next: (trabajo) => {
+        if (trabajo.estado === 'COMPLETADO') {
+          this.successCrear = 'Archivos del auditorio subidos correctamente';
+          this.loadAuditorios();
+        } else if (trabajo.estado === 'COMPLETADO_LOCAL') {
+          this.successCrear = 'Archivos del auditorio guardados';
+          this.errorCrear = 'Advertencia: ' + (trabajo.advertencia || 'los archivos quedaron en el almacenamiento local');
+          this.loadAuditorios();
+        } else if (trabajo.estado === 'ERROR') {
+          this.errorCrear = 'Error al subir archivos del auditorio: ' + (trabajo.error || '');
+        }
+      },
+      error: (err) => {
+        this.errorCrear = 'No se pudo consultar el estado de la subida: ' + (err.error || err.message);
+      }
+    });
+  }
+
   cancelarEdicion() {
     this.editandoAuditorio = false;
     this.auditorioEditando = null;
@@ -1184,7 +1239,7 @@ export class AdminPanelComponent implements OnInit {
     this.imagenAuditorio = null;
     this.videoAuditorio = null;
     this.previewImagenAuditorio = null;
-    this.previewVideoAuditorio = null;
+    this.setPreviewVideo(null);
     this.errorCrear = null;
     this.successCrear = null;
   }
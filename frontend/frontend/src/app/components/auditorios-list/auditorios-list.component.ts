@@ -37,7 +37,7 @@ import { Auditorio } from '../../models/auditorio.model';
              [style.animation-delay]="i * 0.1 + 's'">
           <div class="auditorio-image-container">
             <div class="auditorio-image" *ngIf="auditorio.imagenUrl">
-              <img [src]="auditorio.imagenUrl" [alt]="auditorio.nombre" 
+              <img [src]="auditorio.imagenCardUrl || auditorio.imagenUrl" [alt]="auditorio.nombre" 
                    (error)="onImageError($event)" />
               <div class="image-overlay">
                 <span class="overlay-text">Ver Detalles</span>
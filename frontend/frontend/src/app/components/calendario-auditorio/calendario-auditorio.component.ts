@@ -1,5 +1,7 @@
-import { Component, Input, OnInit } from '@angular/core';
+import { Component, Input, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
+import { Subscription } from 'rxjs';
+import { debounceTime } from 'rxjs/operators';
 import { ReservaService } from '../../services/reserva.service';
 import { Reserva } from '../../models/reserva.model';
 
@@ -295,7 +297,7 @@ import { Reserva } from '../../models/reserva.model';
     }
   `]
 })
-export class CalendarioAuditorioComponent implements OnInit {
+export class CalendarioAuditorioComponent implements OnInit, OnDestroy {
   @Input() auditorioId!: number;
   
   currentDate: Date = new Date();
@@ -304,12 +306,29 @@ export class CalendarioAuditorioComponent implements OnInit {
   reservas: Reserva[] = [];
   view: 'semana' | 'mes' | 'dia' = 'semana';
   
+  private eventosSub?: Subscription;
+  
   constructor(private reservaService: ReservaService) {}
   
   ngOnInit() {
     this.initializeHours();
     this.loadReservas();
     this.updateWeekDays();
+    this.escucharCambios();
+  }
+  
+  ngOnDestroy() {
+    this.eventosSub?.unsubscribe();
+  }
+  
+  // Recarga el calendario cuando otro usuario crea, modifica o cancela una reserva del auditorio
+  // (varios cambios seguidos se agrupan en una sola recarga)
+  escucharCambios() {
+    if (this.auditorioId) {
+      this.eventosSub = this.reservaService.getEventosAuditorio(this.auditorioId)
+        .pipe(debounceTime(300))
+        .subscribe(() => this.loadReservas());
+    }
   }
   
   initializeHours() {
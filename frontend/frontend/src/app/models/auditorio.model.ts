@@ -5,11 +5,50 @@ export interface Auditorio {
   descripcion?: string;
   ubicacion?: string;
   imagenUrl?: string;
+  imagenThumbnailUrl?: string; // Variantes reducidas generadas al subir la imagen
+  imagenCardUrl?: string;
+  imagenFullUrl?: string;
   videoUrl?: string;
   activo?: boolean;
 }
 
+// Ventanas libres por día devueltas por /api/auditorios/{id}/disponibilidad
+export interface VentanaLibre {
+  horaInicio: string;
+  horaFin: string;
+}
 
+export interface DisponibilidadDia {
+  fecha: string;
+  libres: VentanaLibre[];
+}
 
+export interface Disponibilidad {
+  auditorioId: number;
+  desde: string;
+  hasta: string;
+  slotMinutos: number;
+  dias: DisponibilidadDia[];
+}
 
+// Resultado de /api/auditorios/buscar
+export interface AuditorioBusqueda {
+  auditorio: Auditorio;
+  disponible: boolean;
+  horaInicio: string;
+  horaFin: string;
+  desplazamientoMinutos: number;
+}
 
+// Estado de una subida de imagen/video en segundo plano (/api/admin/auditorios/subidas/{id})
+export interface TrabajoSubida {
+  id: string;
+  auditorioId: number;
+  estado: 'PENDIENTE' | 'EN_PROCESO' | 'COMPLETADO' | 'COMPLETADO_LOCAL' | 'ERROR';
+  archivosTotales: number;
+  archivosSubidos: number;
+  error?: string;
+  advertencia?: string; // COMPLETADO_LOCAL: S3 no respondió y los archivos quedaron en el servidor
+  creadoEn: string;
+  terminadoEn?: string;
+}
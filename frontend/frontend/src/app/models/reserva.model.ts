@@ -24,3 +24,14 @@ export interface ReservaCreateDTO {
   observaciones?: string;
 }
 
+// Delta recibido por SSE cuando una reserva cambia
+export interface ReservaEvento {
+  tipo: 'CREADA' | 'ACTUALIZADA' | 'ESTADO' | 'CANCELADA';
+  id: number;
+  auditorioId: number;
+  usuarioId?: number; // solo en el canal de administración
+  fecha: string;
+  horaInicio: string;
+  horaFin: string;
+  estado: 'SOLICITADA' | 'PENDIENTE' | 'APROBADA' | 'RECHAZADA' | 'CANCELADA';
+}
@@ -1,8 +1,15 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
+import { Observable, timer } from 'rxjs';
+import { map, switchMap, takeWhile } from 'rxjs/operators';
 import { Reserva } from '../models/reserva.model';
-import { Auditorio } from '../models/auditorio.model';
+import { Auditorio, TrabajoSubida } from '../models/auditorio.model';
+
+// Página de resultados: el backend envía el cursor de la siguiente página en X-Next-Cursor
+export interface Pagina<T> {
+  items: T[];
+  siguienteCursor: string | null;
+}
 
 @Injectable({
   providedIn: 'root'
@@ -13,12 +20,12 @@ export class AdminService {
 
   constructor(private http: HttpClient) {}
 
-  getReservasPendientes(): Observable<Reserva[]> {
-    return this.http.get<Reserva[]>(`${this.apiUrl}/reservas/pendientes`);
+  getReservasPendientes(rol?: string, cursor?: string | null): Observable<Pagina<Reserva>> {
+    return this.getReservasFiltradas(['SOLICITADA', 'PENDIENTE'], rol, cursor);
   }
 
-  getReservasConfirmadas(): Observable<Reserva[]> {
-    return this.http.get<Reserva[]>(`${this.apiUrl}/reservas/confirmadas`);
+  getReservasConfirmadas(cursor?: string | null): Observable<Pagina<Reserva>> {
+    return this.getPagina(`${this.apiUrl}/reservas/confirmadas`, this.conCursor(new HttpParams(), cursor));
   }
 
   aprobarReserva(id: number): Observable<Reserva> {
@@ -36,19 +43,35 @@ export class AdminService {
     return this.http.put<Reserva>(`${this.apiUrl}/reservas/${id}/poner-en-espera`, {});
   }
 
-  getReservasFiltradas(rol?: string): Observable<Reserva[]> {
+  // Estados y rol se filtran en el backend, así cada página ya trae solo lo pedido
+  getReservasFiltradas(estados: string[], rol?: string, cursor?: string | null): Observable<Pagina<Reserva>> {
     let params = new HttpParams();
+    estados.forEach(estado => params = params.append('estado', estado));
     if (rol) {
       params = params.set('rol', rol);
     }
-    return this.http.get<Reserva[]>(`${this.apiUrl}/reservas/filtro`, { params });
+    return this.getPagina(`${this.apiUrl}/reservas/filtro`, this.conCursor(params, cursor));
+  }
+
+  getHistorialReservas(rol?: string, cursor?: string | null): Observable<Pagina<Reserva>> {
+    return this.getReservasFiltradas([], rol, cursor);
+  }
+
+  private conCursor(params: HttpParams, cursor?: string | null): HttpParams {
+    return cursor ? params.set('cursor', cursor) : params;
   }
 
-  getHistorialReservas(): Observable<Reserva[]> {
-    return this.http.get<Reserva[]>(`${this.apiUrl}/reservas/historial`);
+  private getPagina(url: string, params: HttpParams): Observable<Pagina<Reserva>> {
+    return this.http.get<Reserva[]>(url, { params, observe: 'response' }).pipe(
+      map(res => ({
+        items: res.body || [],
+        siguienteCursor: res.headers.get('X-Next-Cursor')
+      }))
+    );
   }
 
-  createAuditorio(auditorio: Auditorio, imagen?: File, video?: File): Observable<Auditorio> {
+  // Si se enviaron archivos, la respuesta trae X-Trabajo-Id: la subida sigue en segundo plano
+  createAuditorio(auditorio: Auditorio, imagen?: File, video?: File): Observable<HttpResponse<Auditorio>> {
     const formData = new FormData();
     formData.append('nombre', auditorio.nombre || '');
     formData.append('capacidad', auditorio.capacidad?.toString() || '0');
@@ -63,7 +86,7 @@ export class AdminService {
       formData.append('video', video);
     }
     
-    return this.http.post<Auditorio>(`${this.apiUrl}/auditorios`, formData);
+    return this.http.post<Auditorio>(`${this.apiUrl}/auditorios`, formData, { observe: 'response' });
   }
 
   createUsuario(usuario: any, imagen?: File): Observable<any> {
@@ -95,7 +118,7 @@ export class AdminService {
     return this.http.get<Auditorio>(`${this.apiUrl}/auditorios/${id}`);
   }
 
-  updateAuditorio(id: number, auditorio: Auditorio, imagen?: File, video?: File): Observable<Auditorio> {
+  updateAuditorio(id: number, auditorio: Auditorio, imagen?: File, video?: File): Observable<HttpResponse<Auditorio>> {
     const formData = new FormData();
     formData.append('nombre', auditorio.nombre || '');
     formData.append('capacidad', auditorio.capacidad?.toString() || '0');
@@ -110,7 +133,19 @@ export class AdminService {
       formData.append('video', video);
     }
     
-    return this.http.put<Auditorio>(`${this.apiUrl}/auditorios/${id}`, formData);
+    return this.http.put<Auditorio>(`${this.apiUrl}/auditorios/${id}`, formData, { observe: 'response' });
+  }
+
+  getTrabajoSubida(trabajoId: string): Observable<TrabajoSubida> {
+    return this.http.get<TrabajoSubida>(`${this.apiUrl}/auditorios/subidas/${trabajoId}`);
+  }
+
+  // Consulta el estado cada 2 segundos hasta que la subida termine (emite también el estado final)
+  esperarTrabajoSubida(trabajoId: string): Observable<TrabajoSubida> {
+    return timer(0, 2000).pipe(
+      switchMap(() => this.getTrabajoSubida(trabajoId)),
+      takeWhile(t => t.estado === 'PENDIENTE' || t.estado === 'EN_PROCESO', true)
+    );
   }
 
   deleteAuditorio(id: number): Observable<void> {
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Auditorio } from '../models/auditorio.model';
+import { Auditorio, AuditorioBusqueda, Disponibilidad } from '../models/auditorio.model';
 
 @Injectable({
   providedIn: 'root'
@@ -23,6 +23,19 @@ export class AuditorioService {
   getAuditorioById(id: number): Observable<Auditorio> {
     return this.http.get<Auditorio>(`${this.apiUrl}/${id}`);
   }
+
+  getDisponibilidad(id: number, desde: string, hasta: string): Observable<Disponibilidad> {
+    return this.http.get<Disponibilidad>(`${this.apiUrl}/${id}/disponibilidad?desde=${desde}&hasta=${hasta}`);
+  }
+
+  buscarAuditorios(capacidad: number, fecha: string, horaInicio: string, horaFin: string,
+                   flexibilidadMinutos?: number): Observable<AuditorioBusqueda[]> {
+    let url = `${this.apiUrl}/buscar?capacidad=${capacidad}&fecha=${fecha}&horaInicio=${horaInicio}&horaFin=${horaFin}`;
+    if (flexibilidadMinutos != null) {
+      url += `&flexibilidadMinutos=${flexibilidadMinutos}`;
+    }
+    return this.http.get<AuditorioBusqueda[]>(url);
+  }
 }
 
 
@@ -0,0 +1,55 @@
+import { Injectable } from '@angular/core';
+import { HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest, HttpResponse } from '@angular/common/http';
+import { Observable, throwError } from 'rxjs';
+import { catchError, finalize, shareReplay, switchMap } from 'rxjs/operators';
+import { AuthService } from './auth.service';
+
+/**
+ * Agrega el access token a los requests del API y, si vence (401), lo renueva
+ * una vez con el refresh token y reintenta el request. Si varios requests reciben
+ * 401 a la vez comparten una sola renovación (el refresh token se usa una vez).
+ */
+@Injectable()
+export class AuthInterceptor implements HttpInterceptor {
+
+  private renovacion: Observable<HttpResponse<void>> | null = null;
+
+  constructor(private authService: AuthService) {}
+
+  intercept(req: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
+    // Rutas relativas ('/api/...') o absolutas ('http://host/api/...')
+    if (!req.url.includes('/api/') || req.url.includes('/api/auth/')) {
+      return next.handle(req);
+    }
+    return next.handle(this.conToken(req)).pipe(
+      catchError((err: HttpErrorResponse) => {
+        if (err.status !== 401 || !this.authService.getRefreshToken()) {
+          return throwError(() => err);
+        }
+        return this.renovar().pipe(
+          // Solo un refresh fallido cierra la sesión; un error del reintento se propaga tal cual
+          catchError(refreshErr => {
+            this.authService.logout();
+            return throwError(() => refreshErr);
+          }),
+          switchMap(() => next.handle(this.conToken(req)))
+        );
+      })
+    );
+  }
+
+  private renovar(): Observable<HttpResponse<void>> {
+    if (!this.renovacion) {
+      this.renovacion = this.authService.refresh().pipe(
+        finalize(() => this.renovacion = null),
+        shareReplay(1)
+      );
+    }
+    return this.renovacion;
+  }
+
+  private conToken(req: HttpRequest<unknown>): HttpRequest<unknown> {
+    const token = this.authService.getAccessToken();
+    return token ? req.clone({ setHeaders: { Authorization: `Bearer ${token}` } }) : req;
+  }
+}
@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpResponse } from '@angular/common/http';
 import { Observable } from 'rxjs';
+import { map } from 'rxjs/operators';
 import { Usuario } from '../models/usuario.model';
 
 @Injectable({
@@ -16,8 +17,40 @@ export class AuthService {
     return this.http.post<Usuario>(`${this.apiUrl}/register`, usuario);
   }
 
+  // Los tokens llegan en las cabeceras Authorization y X-Refresh-Token
   login(email: string, password: string): Observable<Usuario> {
-    return this.http.post<Usuario>(`${this.apiUrl}/login`, { email, password });
+    return this.http.post<Usuario>(`${this.apiUrl}/login`, { email, password }, { observe: 'response' })
+      .pipe(map(response => {
+        this.guardarTokens(response);
+        return response.body as Usuario;
+      }));
+  }
+
+  refresh(): Observable<HttpResponse<void>> {
+    return this.http.post<void>(`${this.apiUrl}/refresh`, { refreshToken: this.getRefreshToken() }, { observe: 'response' })
+      .pipe(map(response => {
+        this.guardarTokens(response);
+        return response;
+      }));
+  }
+
+  getAccessToken(): string | null {
+    return localStorage.getItem('accessToken');
+  }
+
+  getRefreshToken(): string | null {
+    return localStorage.getItem('refreshToken');
+  }
+
+  private guardarTokens(response: HttpResponse<unknown>): void {
+    const authorization = response.headers.get('Authorization');
+    const refreshToken = response.headers.get('X-Refresh-Token');
+    if (authorization?.startsWith('Bearer ')) {
+      localStorage.setItem('accessToken', authorization.substring(7));
+    }
+    if (refreshToken) {
+      localStorage.setItem('refreshToken', refreshToken);
+    }
   }
 
   getCurrentUser(): Usuario | null {
@@ -31,6 +64,8 @@ export class AuthService {
 
   logout(): void {
     localStorage.removeItem('currentUser');
+    localStorage.removeItem('accessToken');
+    localStorage.removeItem('refreshToken');
   }
 }
 
@@ -1,7 +1,7 @@
-import { Injectable } from '@angular/core';
+import { Injectable, NgZone } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Reserva, ReservaCreateDTO } from '../models/reserva.model';
+import { Reserva, ReservaCreateDTO, ReservaEvento } from '../models/reserva.model';
 
 @Injectable({
   providedIn: 'root'
@@ -10,7 +10,17 @@ export class ReservaService {
   //private apiUrl = 'http://alb-auditorio-1270223617.us-east-1.elb.amazonaws.com/api/reservas';
     private apiUrl = '/api/reservas';
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private zone: NgZone) {}
+
+  // Cambios en vivo de un auditorio (server-sent events); reemplaza el re-fetch periódico
+  getEventosAuditorio(auditorioId: number): Observable<ReservaEvento> {
+    return new Observable<ReservaEvento>(subscriber => {
+      const source = new EventSource(`${this.apiUrl}/auditorio/${auditorioId}/eventos`);
+      const handler = (event: MessageEvent) => this.zone.run(() => subscriber.next(JSON.parse(event.data)));
+      ['CREADA', 'ACTUALIZADA', 'ESTADO', 'CANCELADA'].forEach(tipo => source.addEventListener(tipo, handler));
+      return () => source.close();
+    });
+  }
 
   getAllReservas(): Observable<Reserva[]> {
     return this.http.get<Reserva[]>(this.apiUrl);